@@ -6,4 +6,27 @@ import java.util.Optional;
 
 public interface BestMoveService {
     Optional<Move> findBestMove(ChessBoard chessBoard);
+
+    /**
+     * Searches within the passed limits, services that can't bound their search ignore them.
+     */
+    default Optional<Move> findBestMove(ChessBoard chessBoard, SearchLimits limits) {
+        return findBestMove(chessBoard);
+    }
+
+    /**
+     * The best move packed as described on {@link Move}, promotion flag included, {@link Move#NO_MOVE} if there is
+     * none. Services that search packed moves hand over the one they found, the others' moves are looked up among
+     * the board's.
+     */
+    default int findBestPackedMove(ChessBoard chessBoard) {
+        return findBestMove(chessBoard).map(move -> Move.toPackedMove(chessBoard, move)).orElse(Move.NO_MOVE);
+    }
+
+    /**
+     * Like {@link #findBestPackedMove(ChessBoard)} within the passed limits.
+     */
+    default int findBestPackedMove(ChessBoard chessBoard, SearchLimits limits) {
+        return findBestMove(chessBoard, limits).map(move -> Move.toPackedMove(chessBoard, move)).orElse(Move.NO_MOVE);
+    }
 }
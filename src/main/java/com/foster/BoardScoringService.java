@@ -12,4 +12,10 @@ public interface BoardScoringService {
     double scoreBoard(ChessBoard board, Player plLayer);
 
     double scorePieces(List<Piece> myPieces, List<Piece> opponentsPieces);
+
+    /**
+     * @param pieceType one of the piece types on {@link com.foster.board.Move}
+     * @return what a piece of the type is worth, in the units of the board score.
+     */
+    double getPieceValue(int pieceType);
 }
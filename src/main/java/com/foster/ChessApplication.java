@@ -1,11 +1,47 @@
 package com.foster;
 
+import com.foster.board.DefaultChessBoard;
+import com.foster.board.Perft;
+import com.foster.board.zobrist.BBUtils;
+import com.foster.board.zobrist.ZobristChessBoard;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
 public class ChessApplication {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws ParseException {
+        Options options = new Options();
+        options.addOption("perft", true, "count the leaf positions to the given depth");
+        options.addOption("fen", true, "the position to start from, the starting position if left out");
+        options.addOption("divide", false, "also count the leaves under every move at the root");
+        options.addOption("hash", true, "the number of subtree counts to cache, none if left out");
+        options.addOption("objects", false, "use the piece object board rather than the bitboard one");
+
+        CommandLine commandLine = new DefaultParser().parse(options, args);
+        if (commandLine.hasOption("perft")) {
+            perft(commandLine);
+            return;
+        }
+        new HelpFormatter().printHelp("chess", options);
+
 //        BoardScoringService boardScoringService = new DefaultBoardScoringService();
 //        var blackBoardService = new DefaultBoardService(Player.black, boardScoringService);
 //        var whiteBoardService = new DefaultBoardService(Player.white, boardScoringService);
 //        var chessBoard = new DefaultChessBoard(blackBoardService, whiteBoardService);
 //        chessBoard.play();
     }
+
+    private static void perft(CommandLine commandLine) {
+        String fen = commandLine.getOptionValue("fen", BBUtils.START_FEN);
+        int depth = Integer.parseInt(commandLine.getOptionValue("perft"));
+        int hashEntries = Integer.parseInt(commandLine.getOptionValue("hash", "0"));
+        ChessBoard chessBoard = commandLine.hasOption("objects")
+                ? new DefaultChessBoard(null, null, fen)
+                : new ZobristChessBoard(null, null, fen);
+
+        var perft = new Perft(chessBoard, Perft.sideToMove(fen), hashEntries);
+        System.out.println(perft.run(depth, commandLine.hasOption("divide")));
+    }
 }
@@ -7,15 +7,149 @@ import java.util.List;
 import java.util.Optional;
 
 public interface ChessBoard {
+    /**
+     * The kinds of moves {@link #generateMoves(Player, int[], int, int)} can be asked for, tactical moves are
+     * captures and promotions, see {@link Move#isTactical(int)}.
+     */
+    int ALL_MOVES = 0;
+    int TACTICAL_MOVES = 1;
+    int QUIET_MOVES = 2;
+
     void play();
 
     Optional<String> applyMove(Move move, boolean debug);
 
+    /**
+     * Plays a move packed as described on {@link Move}, without allocating anything for it.
+     *
+     * @return false if the board refused the move, in which case there is nothing to roll back.
+     */
+    boolean makeMove(int move);
+
+    /**
+     * Passes the turn without moving anything, for the null move pruning of a search. The en passant location goes
+     * away as it would after any move, and {@link #rollbackToPreviousMove} takes the pass back.
+     */
+    void makeNullMove();
+
+    /**
+     * Writes the moves of the player's pieces into the buffer, packed as described on {@link Move}.
+     *
+     * @param player the player whose moves are wanted, whether it's their turn or not
+     * @param moves  the buffer to write the moves into
+     * @param offset the first free index in the buffer
+     * @return the number of moves written.
+     */
+    default int generateMoves(Player player, int[] moves, int offset) {
+        return generateMoves(player, moves, offset, ALL_MOVES);
+    }
+
+    /**
+     * Writes only the moves of one kind, so a search can try the captures before paying for the quiet moves.
+     *
+     * @param kind {@link #ALL_MOVES}, {@link #TACTICAL_MOVES} or {@link #QUIET_MOVES}
+     * @return the number of moves written.
+     */
+    int generateMoves(Player player, int[] moves, int offset, int kind);
+
+    /**
+     * @return true if generateMoves would write the move for the player in the current position. For moves
+     * remembered from other positions, checked without generating the moves of the other pieces.
+     */
+    boolean isLegal(Player player, int move);
+
+    /**
+     * Moves the moves of the kind to the front of the slice, for generators that can't tell the kinds apart.
+     *
+     * @return the end of the moves kept.
+     */
+    static int retainMoves(int kind, int[] moves, int start, int end) {
+        if (kind == ALL_MOVES) {
+            return end;
+        }
+        boolean tactical = kind == TACTICAL_MOVES;
+        int kept = start;
+        for (int i = start; i < end; i++) {
+            if (Move.isTactical(moves[i]) == tactical) {
+                moves[kept++] = moves[i];
+            }
+        }
+        return kept;
+    }
+
     List<Piece> getBlackPieces();
 
     List<Piece> getWhitePieces();
 
+    /**
+     * @return the piece standing on the location, null if the square is empty.
+     */
+    Piece getPiece(int location);
+
+    /**
+     * @return a bitboard with a bit set for every location the player's pieces stand on.
+     */
+    long getOccupancy(Player player);
+
+    /**
+     * @return what the player's pieces other than pawns and the king are worth, knights and bishops 325, rooks 500
+     * and queens 975. With none of them left a player is the most likely to be in zugzwang.
+     */
+    int getPieceMaterial(Player player);
+
+    /**
+     * @return the plies played since the last capture or pawn move, the game is drawn by the fifty-move rule at 100.
+     */
+    int getHalfMoveClock();
+
+    /**
+     * @return true if the position came up before with the same player to move, since the last capture or pawn move.
+     * A search takes one repetition as a draw, whoever can repeat once can repeat again.
+     */
+    boolean isRepetition();
+
+    /**
+     * @return true if the player's king is attacked, false if it isn't or the player has no king.
+     */
+    boolean isInCheck(Player player);
+
+    /**
+     * @param kingSide true for castling king side, false for queen side
+     * @return true if the player still has the right to castle that way, i.e. neither the king nor that rook has
+     * moved. Whether the squares in between are empty or attacked isn't considered.
+     */
+    boolean canCastle(Player player, boolean kingSide);
+
+    /**
+     * @return the location a pawn can be taken on en passant, the square a pawn just skipped over, -1 if there isn't
+     * one.
+     */
+    int getEnPassantLocation();
+
+    /**
+     * @return whose turn it is, after a move the opponent of whoever moved.
+     */
+    Player getSideToMove();
+
+    /**
+     * Static exchange evaluation of a move, see {@link com.foster.board.zobrist.BBAttacks#see}.
+     *
+     * @return the material the move wins once all captures on its destination are played out, in centipawns.
+     */
+    int see(int move);
+
     Optional<String> rollbackToPreviousMove(boolean includeFEN);
 
     public String translateToFEN();
+
+    /**
+     * @return an independent board in the same position, for another thread to search on. The moves that led here
+     * aren't copied, they can't be rolled back on the copy.
+     */
+    ChessBoard copy();
+
+    /**
+     * @return the Zobrist key of the current position, kept up to date by applyMove and rollbackToPreviousMove.
+     */
+    long getKey();
 }
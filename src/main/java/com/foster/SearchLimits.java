@@ -0,0 +1,88 @@
+package com.foster;
+
+/**
+ * How long a search may run. Any mix of limits can be set and the search stops at whichever is reached first, 0
+ * leaves a limit unset. With none set the search runs until it's told to stop.
+ *
+ * @param depth     the deepest iteration to complete
+ * @param moveTime  milliseconds to spend on the move
+ * @param nodes     positions to visit
+ * @param clock     milliseconds left on the clock of the player to move
+ * @param increment milliseconds added to that clock after the move
+ * @param movesToGo moves to play before the clock is topped up again, 0 when it never is
+ */
+public record SearchLimits(int depth, long moveTime, long nodes, long clock, long increment, int movesToGo) {
+    public static final SearchLimits INFINITE = new SearchLimits(0, 0, 0, 0, 0);
+
+    /**
+     * Never spend the last of the clock, it's needed to send the move.
+     */
+    private static final long CLOCK_RESERVE = 50;
+
+    /**
+     * How many more moves a share of the clock is planned for.
+     */
+    private static final int MOVES_TO_PLAN_FOR = 30;
+
+    /**
+     * How many times its share of the clock a move may take at most, when the search is unsure of it.
+     */
+    private static final int MAX_SHARES = 4;
+
+    public SearchLimits(int depth, long moveTime, long nodes, long clock, long increment) {
+        this(depth, moveTime, nodes, clock, increment, 0);
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0, 0, 0);
+    }
+
+    public static SearchLimits moveTime(long moveTime) {
+        return new SearchLimits(0, moveTime, 0, 0, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(0, 0, nodes, 0, 0);
+    }
+
+    public static SearchLimits clock(long clock, long increment) {
+        return new SearchLimits(0, 0, 0, clock, increment);
+    }
+
+    public static SearchLimits clock(long clock, long increment, int movesToGo) {
+        return new SearchLimits(0, 0, 0, clock, increment, movesToGo);
+    }
+
+    /**
+     * @return the milliseconds the search is planned to take, the move time or a share of the clock, whichever is
+     * less, and 0 when neither is set. The clock is shared over the moves to go, or over a number of moves planned
+     * for when there is no time control to reach.
+     */
+    public long timeBudget() {
+        long budget = 0;
+        if (clock > 0) {
+            long share = clock / (movesToGo > 0 ? movesToGo : MOVES_TO_PLAN_FOR) + increment * 3 / 4;
+            budget = Math.max(1, Math.min(share, clock - CLOCK_RESERVE));
+        }
+        return withMoveTime(budget);
+    }
+
+    /**
+     * @return the milliseconds the search may take at most, however unsure it is of its move: a few times the
+     * planned budget, but never the whole clock, and never past the move time. 0 when neither is set.
+     */
+    public long maxTimeBudget() {
+        long budget = 0;
+        if (clock > 0) {
+            budget = Math.max(timeBudget(), Math.min(timeBudget() * MAX_SHARES, clock - CLOCK_RESERVE));
+        }
+        return withMoveTime(budget);
+    }
+
+    private long withMoveTime(long budget) {
+        if (moveTime > 0) {
+            return budget == 0 ? moveTime : Math.min(budget, moveTime);
+        }
+        return budget;
+    }
+}
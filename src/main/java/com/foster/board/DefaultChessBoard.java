@@ -5,8 +5,14 @@ import com.foster.ChessBoard;
 import com.foster.Player;
 import com.foster.board.move.MoveConsequence;
 import com.foster.board.piece.*;
+import com.foster.board.zobrist.BBAttacks;
+import com.foster.board.zobrist.BBUtils;
+import com.foster.board.zobrist.Zobrist;
+import com.foster.board.zobrist.ZobristChessBoard;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -15,10 +21,64 @@ import java.util.stream.Stream;
 public class DefaultChessBoard implements ChessBoard {
     private final List<Piece> blackPieces = new ArrayList<>(24);
     private final List<Piece> whitePieces = new ArrayList<>(24);
+
+    /**
+     * The spare pieces pawns are promoted into, eight of each kind a pawn can become, also in the piece lists while
+     * captured. Only these are promoted into, a piece taken earlier in the line has to stay where it was taken so
+     * rolling back puts it back there.
+     */
+    private final List<Piece> blackPromotionPieces = new ArrayList<>(32);
+    private final List<Piece> whitePromotionPieces = new ArrayList<>(32);
     private final BestMoveService blackBoardScoringService;
     private final BestMoveService whiteBoardScoringService;
 
-    private Optional<MoveConsequence> lastMoveConsequence = Optional.empty();
+    private static final int WHITE_KING_SIDE = 1;
+    private static final int WHITE_QUEEN_SIDE = 2;
+    private static final int BLACK_KING_SIDE = 4;
+    private static final int BLACK_QUEEN_SIDE = 8;
+
+    /**
+     * Undo stack, one entry per applied move so any number of moves can be rolled back.
+     */
+    private final MoveConsequence[] moveConsequences = new MoveConsequence[ZobristChessBoard.MAX_GAME_LENGTH];
+    private int ply;
+
+    /**
+     * The key before every applied move, indexed like the undo stack, to restore on rollback and to find repetitions
+     * in.
+     */
+    private final long[] keyHistory = new long[ZobristChessBoard.MAX_GAME_LENGTH];
+
+    /**
+     * The piece standing on every location, null where the square is empty, and a bitboard of each side's squares.
+     * Both are kept in step with the piece lists so occupancy never needs a scan of the lists.
+     */
+    private final Piece[] squares = new Piece[64];
+    private long whiteOccupancy;
+    private long blackOccupancy;
+
+    /**
+     * A bitboard per player and piece type, indexed by {@link Player#ordinal()} and {@link Piece#getType()}, so the
+     * legality checks can look attackers up the way the bitboard board does.
+     */
+    private final long[][] typeOccupancy = new long[2][6];
+
+    /**
+     * Room for the moves of a single piece, see {@link #isLegal(Player, int)}.
+     */
+    private final int[] pieceMoves = new int[64];
+
+    private long key;
+    private int castlingRights;
+    private int enPassantLocation = -1;
+    private int halfMoveClock;
+
+    /**
+     * Whose turn it is for the FEN, the moves are played for the owner of the piece either way. After a move it's the
+     * mover's opponent.
+     */
+    private Player sideToMove;
+    private int fullMoveNumber;
 
     public DefaultChessBoard(BestMoveService blackBoardScoringService, BestMoveService whiteBoardScoringService) {
         this(blackBoardScoringService, whiteBoardScoringService, "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
@@ -27,23 +87,40 @@ public class DefaultChessBoard implements ChessBoard {
     public DefaultChessBoard(BestMoveService blackBoardScoringService, BestMoveService whiteBoardScoringService, String fen) {
         this.blackBoardScoringService = blackBoardScoringService;
         this.whiteBoardScoringService = whiteBoardScoringService;
+        for (int i = 0; i < moveConsequences.length; i++) {
+            moveConsequences[i] = new MoveConsequence();
+        }
         loadFromFEN(fen);
-        loadPromotedQueens();
     }
 
-    private void loadPromotedQueens() {
-        int inactivePromotedQueens = 8;
-        for (int i = 0; i < inactivePromotedQueens; i++) {
-            var blackQueen = new Queen(Player.black, new Position(1, i));
-            blackQueen.setCaptured(true);
-            blackPieces.add(blackQueen);
+    private void loadPromotionPieces() {
+        int inactivePromotionPieces = 8;
+        blackPromotionPieces.clear();
+        whitePromotionPieces.clear();
+        for (int type = Move.KNIGHT; type <= Move.QUEEN; type++) {
+            for (int i = 0; i < inactivePromotionPieces; i++) {
+                var blackPiece = createPromotionPiece(type, Player.black, new Position(1, i));
+                blackPiece.setCaptured(true);
+                blackPieces.add(blackPiece);
+                blackPromotionPieces.add(blackPiece);
 
-            var whiteQueen = new Queen(Player.white, new Position(6, i));
-            whiteQueen.setCaptured(true);
-            whitePieces.add(whiteQueen);
+                var whitePiece = createPromotionPiece(type, Player.white, new Position(6, i));
+                whitePiece.setCaptured(true);
+                whitePieces.add(whitePiece);
+                whitePromotionPieces.add(whitePiece);
+            }
         }
     }
 
+    private static Piece createPromotionPiece(int type, Player player, Position position) {
+        return switch (type) {
+            case Move.KNIGHT -> new Knight(player, position);
+            case Move.BISHOP -> new Bishop(player, position);
+            case Move.ROOK -> new Rook(player, position);
+            default -> new Queen(player, position);
+        };
+    }
+
     @Override
     public void play() {
 
@@ -51,60 +128,389 @@ public class DefaultChessBoard implements ChessBoard {
 
     @Override
     public Optional<String> applyMove(Move move, boolean debug) {
-        List<Piece> myPieces = switch (move.piece().getPlayer()) {
+        if (!applyMove(move.piece(), move.destination(), move.promotionType())) {
+            return Optional.empty();
+        }
+        var newFen = debug ? translateToFEN() : null;
+        return Optional.ofNullable(newFen);
+    }
+
+    /**
+     * Plays the move for whoever owns the piece standing on the from location, like {@link #applyMove(Move, boolean)}
+     * whoever's turn it is.
+     */
+    @Override
+    public boolean makeMove(int move) {
+        var piece = squares[Move.getFrom(move)];
+        return piece != null
+                && applyMove(piece, Position.fromLocation(Move.getTo(move)), Move.getPromotionType(Move.getFlag(move)));
+    }
+
+    /**
+     * Passing clears the en passant location and hands the turn over. It's recorded like a move, with nothing moved,
+     * so it can be rolled back, and it starts the half move clock over: no position before it counts as repeated by
+     * one after it, they'd only be the same because a move was skipped.
+     */
+    @Override
+    public void makeNullMove() {
+        if (ply == moveConsequences.length) {
+            throw new IllegalStateException("Game is longer than " + moveConsequences.length + " plies");
+        }
+        keyHistory[ply] = key;
+        moveConsequences[ply++].set(null, null, null, castlingRights, enPassantLocation, halfMoveClock,
+                sideToMove);
+        key ^= getEnPassantKey(enPassantLocation) ^ Zobrist.whiteMove;
+        enPassantLocation = -1;
+        halfMoveClock = 0;
+        sideToMove = opponent(sideToMove);
+    }
+
+    /**
+     * Writes the legal moves of the player, the pieces generate their moves without looking at the king and the ones
+     * leaving it in check are dropped afterwards.
+     */
+    @Override
+    public int generateMoves(Player player, int[] moves, int offset, int kind) {
+        List<Piece> pieces = switch (player) {
             case white -> whitePieces;
             case black -> blackPieces;
         };
+        int index = offset;
+        for (int i = 0; i < pieces.size(); i++) {
+            var piece = pieces.get(i);
+            if (!piece.isCaptured()) {
+                index = piece.generateMoves(this, moves, index, kind);
+            }
+        }
+        return retainLegalMoves(player, moves, offset, index) - offset;
+    }
 
-        var piece = move.piece();
-        int index = myPieces.indexOf(piece);
-        if (index < 0) {
-            // piece isn't found
-            return Optional.empty();
+    /**
+     * Generates the moves of the one piece standing on the from location and looks for the move among them.
+     */
+    @Override
+    public boolean isLegal(Player player, int move) {
+        var piece = squares[Move.getFrom(move)];
+        if (piece == null || piece.getPlayer() != player || piece.getType() != Move.getPieceType(move)) {
+            return false;
+        }
+        int kind = Move.isTactical(move) ? TACTICAL_MOVES : QUIET_MOVES;
+        int end = retainLegalMoves(player, pieceMoves, 0, piece.generateMoves(this, pieceMoves, 0, kind));
+        for (int i = 0; i < end; i++) {
+            if (pieceMoves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops the moves leaving the player's king in check and moves the rest to the front of the slice. The pieces
+     * checking the king and the pieces pinned to it are found once, after which most moves only need a mask test:
+     * in double check only the king can move, in check the other pieces have to take the checker or block it, and a
+     * pinned piece has to stay on its pin line. King moves look the destination up with the king taken off the
+     * board, castling checks the squares the king passes, and en passant is played on the occupancy.
+     * A player without a king keeps every move.
+     *
+     * @return the end of the legal moves.
+     */
+    private int retainLegalMoves(Player player, int[] moves, int start, int end) {
+        long king = typeOccupancy[player.ordinal()][Move.KING];
+        if (king == 0L) {
+            return end;
+        }
+        long[] enemy = typeOccupancy[1 - player.ordinal()];
+        long occupancy = whiteOccupancy | blackOccupancy;
+        int kingLocation = Long.numberOfTrailingZeros(king);
+
+        long checkers = getAttackers(player, kingLocation, occupancy, 0L);
+        boolean doubleCheck = Long.bitCount(checkers) > 1;
+        long checkMask = checkers == 0L
+                ? -1L
+                : checkers | BBAttacks.getBetween(kingLocation, Long.numberOfTrailingZeros(checkers));
+        long pinned = BBAttacks.getPinned(kingLocation, getOccupancy(player), occupancy & ~getOccupancy(player),
+                enemy[Move.BISHOP] | enemy[Move.QUEEN], enemy[Move.ROOK] | enemy[Move.QUEEN]);
+
+        int index = start;
+        for (int i = start; i < end; i++) {
+            int move = moves[i];
+            int from = Move.getFrom(move);
+            int to = Move.getTo(move);
+            int flag = Move.getFlag(move);
+            long destination = 1L << to;
+
+            boolean legal;
+            if (from == kingLocation && (flag == Move.FLAG_CASTLE_KINGSIDE || flag == Move.FLAG_CASTLE_QUEENSIDE)) {
+                legal = checkers == 0L
+                        && getAttackers(player, (from + to) / 2, occupancy, 0L) == 0L
+                        && getAttackers(player, to, occupancy, 0L) == 0L;
+            } else if (from == kingLocation) {
+                legal = getAttackers(player, to, occupancy ^ king, 0L) == 0L;
+            } else if (doubleCheck) {
+                legal = false;
+            } else if (flag == Move.FLAG_EN_PASSANT) {
+                long captured = 1L << (player == Player.white ? to - 8 : to + 8);
+                long occupancyAfter = (occupancy ^ (1L << from) ^ captured) | destination;
+                legal = getAttackers(player, kingLocation, occupancyAfter, captured) == 0L;
+            } else {
+                legal = (destination & checkMask) != 0L
+                        && ((pinned & (1L << from)) == 0L || (BBAttacks.getLine(kingLocation, from) & destination) != 0L);
+            }
+
+            if (legal) {
+                moves[index++] = move;
+            }
         }
+        return index;
+    }
+
+    /**
+     * @param removed pieces of the opponent to leave out, the pawn taken en passant
+     * @return the opponent's pieces attacking the location with the board occupied as passed.
+     */
+    private long getAttackers(Player player, int location, long occupancy, long removed) {
+        long[] enemy = typeOccupancy[1 - player.ordinal()];
+        return BBAttacks.getAttackers(location, occupancy, player == Player.white,
+                enemy[Move.PAWN] & ~removed,
+                enemy[Move.KNIGHT],
+                enemy[Move.BISHOP] | enemy[Move.QUEEN],
+                enemy[Move.ROOK] | enemy[Move.QUEEN],
+                enemy[Move.KING]);
+    }
+
+    @Override
+    public Piece getPiece(int location) {
+        return squares[location];
+    }
 
-        List<Piece> opponentPieces = switch (move.piece().getPlayer()) {
-            case white -> blackPieces;
-            case black -> whitePieces;
+    @Override
+    public long getOccupancy(Player player) {
+        return switch (player) {
+            case white -> whiteOccupancy;
+            case black -> blackOccupancy;
         };
-        Optional<Piece> optionalCapturedPiece = opponentPieces.parallelStream()
-                .filter(p -> {
-                    var destination = move.destination();
-                    var opponentPosition = p.getPosition();
-                    return opponentPosition.row() == destination.row() && opponentPosition.column() == destination.column();
-                })
-                .findFirst();
-
-        optionalCapturedPiece.ifPresent(capturedPiece -> {
-            capturedPiece.setCaptured(true);
-            var msg = String.format("%s %s at %s %s has taken opponent %s %s at %s,%s",
-                    piece.getPlayer(),
-                    piece.getClass().getSimpleName(),
-                    piece.getPosition().row(),
-                    piece.getPosition().column(),
-                    capturedPiece.getPlayer(),
-                    capturedPiece.getClass().getSimpleName(),
-                    capturedPiece.getPosition().row(),
-                    capturedPiece.getPosition().column());
-            System.out.println(msg);
-        });
+    }
+
+    @Override
+    public int getPieceMaterial(Player player) {
+        long[] bitboards = typeOccupancy[player.ordinal()];
+        return 325 * Long.bitCount(bitboards[Move.KNIGHT]) + 325 * Long.bitCount(bitboards[Move.BISHOP])
+                + 500 * Long.bitCount(bitboards[Move.ROOK]) + 975 * Long.bitCount(bitboards[Move.QUEEN]);
+    }
+
+    @Override
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    /**
+     * Looks back through the keys of the positions with the same player to move since the last capture or pawn
+     * move, the ones before can't come round again.
+     */
+    @Override
+    public boolean isRepetition() {
+        int irreversible = Math.max(0, ply - halfMoveClock);
+        for (int i = ply - 2; i >= irreversible; i -= 2) {
+            if (keyHistory[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Player opponent(Player player) {
+        return player == Player.white ? Player.black : Player.white;
+    }
+
+    @Override
+    public boolean isInCheck(Player player) {
+        long king = typeOccupancy[player.ordinal()][Move.KING];
+        return king != 0L
+                && getAttackers(player, Long.numberOfTrailingZeros(king), whiteOccupancy | blackOccupancy, 0L) != 0L;
+    }
+
+    @Override
+    public boolean canCastle(Player player, boolean kingSide) {
+        int right = switch (player) {
+            case white -> kingSide ? WHITE_KING_SIDE : WHITE_QUEEN_SIDE;
+            case black -> kingSide ? BLACK_KING_SIDE : BLACK_QUEEN_SIDE;
+        };
+        return (castlingRights & right) != 0;
+    }
+
+    @Override
+    public int getEnPassantLocation() {
+        return enPassantLocation;
+    }
+
+    private void place(Piece piece) {
+        int location = piece.getPosition().toLocation();
+        squares[location] = piece;
+        typeOccupancy[piece.getPlayer().ordinal()][piece.getType()] |= 1L << location;
+        switch (piece.getPlayer()) {
+            case white -> whiteOccupancy |= 1L << location;
+            case black -> blackOccupancy |= 1L << location;
+        }
+    }
+
+    private void remove(Piece piece) {
+        int location = piece.getPosition().toLocation();
+        squares[location] = null;
+        typeOccupancy[piece.getPlayer().ordinal()][piece.getType()] &= ~(1L << location);
+        switch (piece.getPlayer()) {
+            case white -> whiteOccupancy &= ~(1L << location);
+            case black -> blackOccupancy &= ~(1L << location);
+        }
+    }
+
+    /**
+     * @param promotionType the type of piece a pawn reaching the last rank becomes
+     */
+    private boolean applyMove(Piece piece, Position destination, int promotionType) {
+        List<Piece> promotionPieces = switch (piece.getPlayer()) {
+            case white -> whitePromotionPieces;
+            case black -> blackPromotionPieces;
+        };
+
+        if (piece.isCaptured() || squares[piece.getPosition().toLocation()] != piece) {
+            // piece isn't found
+            return false;
+        }
+        Piece capturedPiece = squares[destination.toLocation()];
+        if (capturedPiece != null && capturedPiece.getPlayer() == piece.getPlayer()) {
+            // can't take our own piece
+            return false;
+        }
+        boolean isPawn = piece.getClass() == Pawn.class;
+        if (capturedPiece == null && isPawn && destination.toLocation() == enPassantLocation
+                && destination.column() != piece.getPosition().column()) {
+            // the pawn taken en passant stands beside us, not on the square we move to
+            capturedPiece = squares[Position.toLocation(piece.getPosition().row(), destination.column())];
+        }
+        Piece castlingRook = null;
+        if (piece.getClass() == King.class && Math.abs(destination.column() - piece.getPosition().column()) == 2) {
+            int rookColumn = destination.column() > piece.getPosition().column() ? 7 : 0;
+            castlingRook = squares[Position.toLocation(destination.row(), rookColumn)];
+            if (castlingRook == null || castlingRook.getClass() != Rook.class || castlingRook.getPlayer() != piece.getPlayer()) {
+                // nothing to castle with
+                return false;
+            }
+        }
+        if (ply == moveConsequences.length) {
+            throw new IllegalStateException("Game is longer than " + moveConsequences.length + " plies");
+        }
 
+        keyHistory[ply] = key;
+        var moveConsequence = moveConsequences[ply++];
         var previousPosition = piece.getPosition();
-        piece.setPosition(move.destination());
+        var previousHalfMoveClock = halfMoveClock;
+        var previousSideToMove = sideToMove;
+        var previousCastlingRights = castlingRights;
+        var previousEnPassantLocation = enPassantLocation;
+
+        if (capturedPiece != null) {
+            capturedPiece.setCaptured(true);
+            remove(capturedPiece);
+            key ^= Zobrist.getKeyForPiece(capturedPiece);
+        }
+
+        key ^= Zobrist.getKeyForPiece(piece);
+        remove(piece);
+        piece.setPosition(destination);
+        Piece promotedPiece = null;
+        Position promotedPiecePreviousPosition = null;
         if (isPawnPromoted(piece)) {
             piece.setCaptured(true);
-            myPieces.stream()
-                    .filter(p -> p.getClass() == Queen.class && p.isCaptured())
-                    .findFirst()
-                    .ifPresent(p -> {
-                        p.setCaptured(false);
-                        p.setPosition(move.destination());
-                    });
+            for (int i = 0; i < promotionPieces.size(); i++) {
+                Piece spare = promotionPieces.get(i);
+                if (spare.isCaptured() && spare.getType() == promotionType) {
+                    promotedPiece = spare;
+                    break;
+                }
+            }
+            if (promotedPiece != null) {
+                // a spare promoted before and taken since is promoted again, it goes back where it was taken
+                promotedPiecePreviousPosition = promotedPiece.getPosition();
+                promotedPiece.setCaptured(false);
+                promotedPiece.setPosition(destination);
+                place(promotedPiece);
+                key ^= Zobrist.getKeyForPiece(promotedPiece);
+            }
+        } else {
+            place(piece);
+            key ^= Zobrist.getKeyForPiece(piece);
         }
 
-        lastMoveConsequence = Optional.of(new MoveConsequence(optionalCapturedPiece, piece, previousPosition));
-        var newFen = debug ? translateToFEN() : null;
-        return Optional.ofNullable(newFen);
+        Position previousRookPosition = null;
+        if (castlingRook != null) {
+            previousRookPosition = castlingRook.getPosition();
+            key ^= Zobrist.getKeyForPiece(castlingRook);
+            remove(castlingRook);
+            castlingRook.setPosition(Position.fromLocation((previousPosition.toLocation() + destination.toLocation()) / 2));
+            place(castlingRook);
+            key ^= Zobrist.getKeyForPiece(castlingRook);
+        }
+
+        halfMoveClock = isPawn || capturedPiece != null ? 0 : halfMoveClock + 1;
+        castlingRights &= ~(castlingRightsLost(previousPosition.toLocation()) | castlingRightsLost(destination.toLocation()));
+        enPassantLocation = -1;
+        if (isPawn && Math.abs(previousPosition.row() - destination.row()) == 2) {
+            enPassantLocation = (previousPosition.toLocation() + destination.toLocation()) / 2;
+        }
+        key ^= getCastlingKey(previousCastlingRights) ^ getCastlingKey(castlingRights)
+                ^ getEnPassantKey(previousEnPassantLocation) ^ getEnPassantKey(enPassantLocation);
+        sideToMove = opponent(piece.getPlayer());
+        key ^= getSideToMoveKey(previousSideToMove) ^ getSideToMoveKey(sideToMove);
+        if (piece.getPlayer() == Player.black) {
+            fullMoveNumber++;
+        }
+
+        moveConsequence.set(capturedPiece, piece, previousPosition, previousCastlingRights, previousEnPassantLocation,
+                previousHalfMoveClock, previousSideToMove);
+        moveConsequence.setPromotedPiece(promotedPiece, promotedPiecePreviousPosition);
+        moveConsequence.setCastlingRook(castlingRook, previousRookPosition);
+        return true;
+    }
+
+    /**
+     * @return the castling rights that are gone once a piece moves from or to the location, a king or rook has
+     * either moved or been taken.
+     */
+    private static int castlingRightsLost(int location) {
+        return switch (location) {
+            case 0 -> WHITE_QUEEN_SIDE;
+            case 4 -> WHITE_KING_SIDE | WHITE_QUEEN_SIDE;
+            case 7 -> WHITE_KING_SIDE;
+            case 56 -> BLACK_QUEEN_SIDE;
+            case 60 -> BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+            case 63 -> BLACK_KING_SIDE;
+            default -> 0;
+        };
+    }
+
+    private static long getCastlingKey(int castlingRights) {
+        long key = 0L;
+        if ((castlingRights & WHITE_KING_SIDE) != 0) {
+            key ^= Zobrist.whiteKingSideCastling;
+        }
+        if ((castlingRights & WHITE_QUEEN_SIDE) != 0) {
+            key ^= Zobrist.whiteQueenSideCastling;
+        }
+        if ((castlingRights & BLACK_KING_SIDE) != 0) {
+            key ^= Zobrist.blackKingSideCastling;
+        }
+        if ((castlingRights & BLACK_QUEEN_SIDE) != 0) {
+            key ^= Zobrist.blackQueenSideCastling;
+        }
+        return key;
+    }
+
+    private static long getEnPassantKey(int enPassantLocation) {
+        return enPassantLocation == -1 ? 0L : Zobrist.passantColumn[BBUtils.getLocCol(enPassantLocation)];
+    }
+
+    private static long getSideToMoveKey(Player sideToMove) {
+        return sideToMove == Player.white ? Zobrist.whiteMove : 0L;
     }
 
     private boolean isPawnPromoted(Piece piece) {
@@ -115,48 +521,70 @@ public class DefaultChessBoard implements ChessBoard {
 
     @Override
     public List<Piece> getBlackPieces() {
-        return blackPieces.parallelStream().filter(piece -> !piece.isCaptured()).collect(Collectors.toList());
+        return blackPieces.stream().filter(piece -> !piece.isCaptured()).collect(Collectors.toList());
     }
 
     @Override
     public List<Piece> getWhitePieces() {
-        return whitePieces.parallelStream().filter(piece -> !piece.isCaptured()).collect(Collectors.toList());
+        return whitePieces.stream().filter(piece -> !piece.isCaptured()).collect(Collectors.toList());
     }
 
     @Override
     public Optional<String> rollbackToPreviousMove(boolean includeFEN) {
-        lastMoveConsequence.ifPresent(moveConsequence -> {
-            moveConsequence.capturedOpponentPiece().ifPresent(p -> p.setCaptured(false));
+        if (ply > 0) {
+            var moveConsequence = moveConsequences[--ply];
+            var promotedPiece = moveConsequence.promotedPiece();
+            if (promotedPiece != null) {
+                promotedPiece.setCaptured(true);
+                remove(promotedPiece);
+                promotedPiece.setPosition(moveConsequence.promotedPiecePreviousPosition());
+            }
 
             Piece movedPiece = moveConsequence.movedPiece();
-            if (isPawnPromoted(movedPiece)) {
-                List<Piece> myPieces = switch (movedPiece.getPlayer()) {
-                    case white -> whitePieces;
-                    case black -> blackPieces;
-                };
-                myPieces.parallelStream()
-                        .filter(p -> p.getClass() == Queen.class && !p.isCaptured())
-                        .filter(p -> {
-                            var movedPos = movedPiece.getPosition();
-                            var position = p.getPosition();
-                            return movedPos.row() == position.row() && movedPos.column() == position.column();
-                        })
-                        .findAny()
-                        .ifPresent(p -> {
-                            p.setCaptured(true);
-                        });
+            if (movedPiece != null) {
+                // null after a pass
+                if (!movedPiece.isCaptured()) {
+                    remove(movedPiece);
+                }
+                movedPiece.setPosition(moveConsequence.previousPosition());
+                movedPiece.setCaptured(false);
+                place(movedPiece);
+                if (movedPiece.getPlayer() == Player.black) {
+                    fullMoveNumber--;
+                }
+            }
+
+            var castlingRook = moveConsequence.castlingRook();
+            if (castlingRook != null) {
+                remove(castlingRook);
+                castlingRook.setPosition(moveConsequence.castlingRookPreviousPosition());
+                place(castlingRook);
+            }
+
+            var capturedPiece = moveConsequence.capturedOpponentPiece();
+            if (capturedPiece != null) {
+                capturedPiece.setCaptured(false);
+                place(capturedPiece);
             }
-            var previousPosition = moveConsequence.previousPosition();
-            movedPiece.setPosition(previousPosition);
-            movedPiece.setCaptured(false);
-        });
-        lastMoveConsequence = Optional.empty();
+
+            castlingRights = moveConsequence.castlingRights();
+            enPassantLocation = moveConsequence.enPassantLocation();
+            halfMoveClock = moveConsequence.halfMoveClock();
+            sideToMove = moveConsequence.sideToMove();
+            key = keyHistory[ply];
+        }
         return includeFEN ? Optional.ofNullable(translateToFEN()) : Optional.empty();
     }
 
     public void loadFromFEN(String fen) {
         blackPieces.clear();
         whitePieces.clear();
+        Arrays.fill(squares, null);
+        for (long[] bitboards : typeOccupancy) {
+            Arrays.fill(bitboards, 0L);
+        }
+        whiteOccupancy = 0L;
+        blackOccupancy = 0L;
         String[] piecePlacement = fen.split("/");
         // will split the piece placement into entries, but last entry has the remaining
         // of the fen string so it needs to be dropped off.
@@ -169,6 +597,25 @@ public class DefaultChessBoard implements ChessBoard {
         String halfMoveClock = fenInfo[4];
         String fullMoveCounter = fenInfo[5];
 
+        ply = 0;
+        castlingRights = 0;
+        if (castling.contains("K")) {
+            castlingRights |= WHITE_KING_SIDE;
+        }
+        if (castling.contains("Q")) {
+            castlingRights |= WHITE_QUEEN_SIDE;
+        }
+        if (castling.contains("k")) {
+            castlingRights |= BLACK_KING_SIDE;
+        }
+        if (castling.contains("q")) {
+            castlingRights |= BLACK_QUEEN_SIDE;
+        }
+        this.enPassantLocation = BBUtils.algebraicLocToInt(enPassant);
+        this.halfMoveClock = Integer.parseInt(halfMoveClock);
+        this.sideToMove = sideToMove.equals("b") ? Player.black : Player.white;
+        this.fullMoveNumber = Integer.parseInt(fullMoveCounter);
+
         for (int i = 0; i < 8; i++) {
             int offset = 0;
             for (int j = 0; j < piecePlacement[i].length(); j++) {
@@ -202,28 +649,50 @@ public class DefaultChessBoard implements ChessBoard {
                         } else {
                             blackPieces.add(piece);
                         }
+                        place(piece);
                     }
                 }
             }
         }
+        loadPromotionPieces();
+        key = Zobrist.getKeyForBoard(this);
     }
 
+    @Override
+    public Player getSideToMove() {
+        return sideToMove;
+    }
+
+    @Override
+    public long getKey() {
+        return key;
+    }
+
+    @Override
+    public int see(int move) {
+        long[] white = typeOccupancy[Player.white.ordinal()];
+        long[] black = typeOccupancy[Player.black.ordinal()];
+        return BBAttacks.see(move, whiteOccupancy | blackOccupancy, whiteOccupancy,
+                white[Move.PAWN] | black[Move.PAWN], white[Move.KNIGHT] | black[Move.KNIGHT],
+                white[Move.BISHOP] | black[Move.BISHOP], white[Move.ROOK] | black[Move.ROOK],
+                white[Move.QUEEN] | black[Move.QUEEN], white[Move.KING] | black[Move.KING]);
+    }
+
+    /**
+     * Loads a new board from the FEN of this one.
+     */
+    @Override
+    public ChessBoard copy() {
+        return new DefaultChessBoard(blackBoardScoringService, whiteBoardScoringService, translateToFEN());
+    }
+
+    @Override
     public String translateToFEN() {
         StringBuilder stringBuilder = new StringBuilder();
-        List<Piece> sortedPieces = Stream.concat(whitePieces.parallelStream(), blackPieces.parallelStream())
+        List<Piece> sortedPieces = Stream.concat(whitePieces.stream(), blackPieces.stream())
                 .filter(piece -> !piece.isCaptured())
-                .sorted((p1, p2) -> {
-                    var pos1 = p1.getPosition();
-                    var pos2 = p2.getPosition();
-
-                    int val = 0;
-                    if (pos1.row() > pos2.row()) {
-                        val = 1;
-                    } else if (pos1.row() < pos2.row()) {
-                        val = -1;
-                    }
-                    return val;
-                })
+                .sorted(Comparator.comparingInt((Piece piece) -> piece.getPosition().row())
+                        .thenComparingInt(piece -> piece.getPosition().column()))
                 .collect(Collectors.toList());
 
         var piece = sortedPieces.get(0);
@@ -254,10 +723,33 @@ public class DefaultChessBoard implements ChessBoard {
                 stringBuilder.append("/");
             }
         }
-        stringBuilder.append(" - - - - -");
+        stringBuilder.append(sideToMove == Player.white ? " w " : " b ");
+        appendCastlingRights(stringBuilder);
+        stringBuilder.append(' ').append(BBUtils.intToAlgebraicLoc(enPassantLocation))
+                .append(' ').append(halfMoveClock)
+                .append(' ').append(fullMoveNumber);
         return stringBuilder.toString();
     }
 
+    private void appendCastlingRights(StringBuilder stringBuilder) {
+        int length = stringBuilder.length();
+        if ((castlingRights & WHITE_KING_SIDE) != 0) {
+            stringBuilder.append('K');
+        }
+        if ((castlingRights & WHITE_QUEEN_SIDE) != 0) {
+            stringBuilder.append('Q');
+        }
+        if ((castlingRights & BLACK_KING_SIDE) != 0) {
+            stringBuilder.append('k');
+        }
+        if ((castlingRights & BLACK_QUEEN_SIDE) != 0) {
+            stringBuilder.append('q');
+        }
+        if (stringBuilder.length() == length) {
+            stringBuilder.append('-');
+        }
+    }
+
     private char translatePiece(Piece piece) {
         char c = switch (piece) {
             case Pawn b -> 'p';
@@ -1,7 +1,163 @@
 package com.foster.board;
 
 
+import com.foster.ChessBoard;
 import com.foster.board.piece.Piece;
 
-public record Move(Piece piece, Position destination) {
+/**
+ * A move of a piece to a destination, with the type of piece a pawn becomes when the move takes it to the last rank.
+ * That's a queen unless told otherwise, other moves ignore it. The bitboard boards don't allocate these while searching, they pass moves
+ * around as packed ints instead. The static helpers below build and read those ints:
+ *
+ * <pre>
+ * bits  0 -  5 from location
+ * bits  6 - 11 to location
+ * bits 12 - 14 piece moving
+ * bit  15      capture
+ * bits 16 - 19 flag
+ * bits 20 - 22 piece captured
+ * </pre>
+ * <p>
+ * 0 can never be a real move, a piece can't move to the square it stands on, so it doubles as {@link #NO_MOVE}.
+ */
+public record Move(Piece piece, Position destination, int promotionType) {
+    public static final int NO_MOVE = 0;
+
+    public static final int PAWN = 0;
+    public static final int KNIGHT = 1;
+    public static final int BISHOP = 2;
+    public static final int ROOK = 3;
+    public static final int QUEEN = 4;
+    public static final int KING = 5;
+
+    public static final int FLAG_NONE = 0;
+    public static final int FLAG_EN_PASSANT = 1;
+    public static final int FLAG_CASTLE_KINGSIDE = 2;
+    public static final int FLAG_CASTLE_QUEENSIDE = 3;
+    public static final int FLAG_PROMOTE_QUEEN = 4;
+    public static final int FLAG_PROMOTE_KNIGHT = 5;
+    public static final int FLAG_PROMOTE_ROOK = 6;
+    public static final int FLAG_PROMOTE_BISHOP = 7;
+
+    private static final int TO_SHIFT = 6;
+    private static final int PIECE_SHIFT = 12;
+    private static final int CAPTURE_SHIFT = 15;
+    private static final int FLAG_SHIFT = 16;
+    private static final int CAPTURED_SHIFT = 20;
+
+    private static final int LOCATION_MASK = 0x3f;
+    private static final int PIECE_MASK = 0x7;
+    private static final int FLAG_MASK = 0xf;
+
+    /**
+     * More moves than any position has.
+     */
+    private static final int MAX_MOVES = 256;
+
+    public Move(Piece piece, Position destination) {
+        this(piece, destination, QUEEN);
+    }
+
+    public static int createMove(int from, int to, int pieceType, int flag) {
+        return (from & LOCATION_MASK)
+                | ((to & LOCATION_MASK) << TO_SHIFT)
+                | (pieceType << PIECE_SHIFT)
+                | (flag << FLAG_SHIFT);
+    }
+
+    public static int createCapture(int from, int to, int pieceType, int capturedPieceType, int flag) {
+        return createMove(from, to, pieceType, flag)
+                | (1 << CAPTURE_SHIFT)
+                | (capturedPieceType << CAPTURED_SHIFT);
+    }
+
+    /**
+     * @return the packed move as a move of the piece standing on its from location, null if that square is empty.
+     */
+    public static Move toMove(ChessBoard chessBoard, int move) {
+        Piece piece = chessBoard.getPiece(getFrom(move));
+        return piece == null ? null
+                : new Move(piece, Position.fromLocation(getTo(move)), getPromotionType(getFlag(move)));
+    }
+
+    /**
+     * @return the move among the ones the board generates for the piece's owner, with the flags the record leaves
+     * implicit, NO_MOVE if it isn't one of them.
+     */
+    public static int toPackedMove(ChessBoard chessBoard, Move move) {
+        int[] moves = new int[MAX_MOVES];
+        int count = chessBoard.generateMoves(move.piece().getPlayer(), moves, 0);
+        int from = move.piece().getPosition().toLocation();
+        int to = move.destination().toLocation();
+        for (int i = 0; i < count; i++) {
+            int flag = getFlag(moves[i]);
+            if (getFrom(moves[i]) == from && getTo(moves[i]) == to
+                    && (!isPromotion(flag) || getPromotionType(flag) == move.promotionType())) {
+                return moves[i];
+            }
+        }
+        return NO_MOVE;
+    }
+
+    public static int getFrom(int move) {
+        return move & LOCATION_MASK;
+    }
+
+    public static int getTo(int move) {
+        return (move >>> TO_SHIFT) & LOCATION_MASK;
+    }
+
+    public static int getPieceType(int move) {
+        return (move >>> PIECE_SHIFT) & PIECE_MASK;
+    }
+
+    public static boolean isCapture(int move) {
+        return ((move >>> CAPTURE_SHIFT) & 1) != 0;
+    }
+
+    /**
+     * @return the type of the piece taken, only meaningful when {@link #isCapture(int)} is true.
+     */
+    public static int getCapturedPieceType(int move) {
+        return (move >>> CAPTURED_SHIFT) & PIECE_MASK;
+    }
+
+    public static int getFlag(int move) {
+        return (move >>> FLAG_SHIFT) & FLAG_MASK;
+    }
+
+    public static boolean isPromotion(int flag) {
+        return flag >= FLAG_PROMOTE_QUEEN && flag <= FLAG_PROMOTE_BISHOP;
+    }
+
+    /**
+     * @return the type of piece a pawn becomes with the flag, a queen for flags other than the promotion flags.
+     */
+    public static int getPromotionType(int flag) {
+        return switch (flag) {
+            case FLAG_PROMOTE_KNIGHT -> KNIGHT;
+            case FLAG_PROMOTE_BISHOP -> BISHOP;
+            case FLAG_PROMOTE_ROOK -> ROOK;
+            default -> QUEEN;
+        };
+    }
+
+    /**
+     * @return the flag of a promotion to the type of piece, the queen's for types a pawn can't become.
+     */
+    public static int getPromotionFlag(int promotionType) {
+        return switch (promotionType) {
+            case KNIGHT -> FLAG_PROMOTE_KNIGHT;
+            case BISHOP -> FLAG_PROMOTE_BISHOP;
+            case ROOK -> FLAG_PROMOTE_ROOK;
+            default -> FLAG_PROMOTE_QUEEN;
+        };
+    }
+
+    /**
+     * @return true for captures and promotions, the moves that change the material on the board.
+     */
+    public static boolean isTactical(int move) {
+        return isCapture(move) || isPromotion(getFlag(move));
+    }
 }
@@ -0,0 +1,159 @@
+package com.foster.board;
+
+import com.foster.ChessBoard;
+import com.foster.Player;
+import com.foster.board.zobrist.BBUtils;
+import com.foster.board.zobrist.MoveGenerator;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts the positions at the end of every line of play to a fixed depth, the standard way to check a move generator
+ * against published numbers and to time it. Works on any {@link ChessBoard}, the passed player moves first and the
+ * sides alternate from there.
+ * <p>
+ * Subtrees can be cached by the board's Zobrist key, which pays off from depth 5 or so where transpositions get
+ * common. The key doesn't need whose turn it is, within one run the side to move follows from the depth left.
+ */
+public class Perft {
+    private final ChessBoard board;
+    private final Player player;
+
+    private final long[] hashKeys;
+    private final long[] hashNodes;
+    private final int[] hashDepths;
+    private final int hashMask;
+    private final boolean hashed;
+
+    public Perft(ChessBoard board, Player player) {
+        this(board, player, 0);
+    }
+
+    /**
+     * @param hashEntries the size of the subtree cache, rounded down to a power of two, 0 for none
+     */
+    public Perft(ChessBoard board, Player player, int hashEntries) {
+        this.board = board;
+        this.player = player;
+        int size = Integer.highestOneBit(Math.max(0, hashEntries));
+        this.hashed = size > 0;
+        this.hashKeys = new long[size];
+        this.hashNodes = new long[size];
+        this.hashDepths = new int[size];
+        this.hashMask = size - 1;
+    }
+
+    /**
+     * @return the player whose turn it is in the FEN, its second field.
+     */
+    public static Player sideToMove(String fen) {
+        return switch (fen.split(" ")[1]) {
+            case "w" -> Player.white;
+            case "b" -> Player.black;
+            default -> throw new IllegalStateException("Unexpected side to move in " + fen);
+        };
+    }
+
+    /**
+     * @return the number of leaf positions depth plies down.
+     */
+    public long perft(int depth) {
+        return perft(player, depth, MoveGenerator.getMoveStack(), 0);
+    }
+
+    /**
+     * Counts the leaves and times the count.
+     *
+     * @param divide true to also count the leaves under every move at the root, which narrows a wrong total down to
+     *               the move whose subtree is off.
+     */
+    public Result run(int depth, boolean divide) {
+        long start = System.nanoTime();
+        if (!divide || depth < 1) {
+            long nodes = perft(depth);
+            return new Result(nodes, System.nanoTime() - start, Collections.emptyMap());
+        }
+
+        int[] moveStack = MoveGenerator.getMoveStack();
+        int count = board.generateMoves(player, moveStack, 0);
+        Map<String, Long> divided = new LinkedHashMap<>();
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moveStack[i];
+            play(move);
+            long moveNodes = perft(opponent(player), depth - 1, moveStack, count);
+            board.rollbackToPreviousMove(false);
+            divided.put(BBUtils.moveToCoordinates(move), moveNodes);
+            nodes += moveNodes;
+        }
+        return new Result(nodes, System.nanoTime() - start, divided);
+    }
+
+    private long perft(Player toMove, int depth, int[] moveStack, int offset) {
+        if (depth == 0) {
+            return 1;
+        }
+        int count = board.generateMoves(toMove, moveStack, offset);
+        if (depth == 1) {
+            // the moves are legal, no need to play them to count them
+            return count;
+        }
+
+        long key = board.getKey();
+        int index = (int) key & hashMask;
+        if (hashed && hashKeys[index] == key && hashDepths[index] == depth) {
+            return hashNodes[index];
+        }
+
+        long nodes = 0;
+        int end = offset + count;
+        for (int i = offset; i < end; i++) {
+            play(moveStack[i]);
+            nodes += perft(opponent(toMove), depth - 1, moveStack, end);
+            board.rollbackToPreviousMove(false);
+        }
+
+        if (hashed) {
+            hashKeys[index] = key;
+            hashDepths[index] = depth;
+            hashNodes[index] = nodes;
+        }
+        return nodes;
+    }
+
+    private void play(int move) {
+        if (!board.makeMove(move)) {
+            throw new IllegalStateException("Board refused generated move " + BBUtils.moveToCoordinates(move));
+        }
+    }
+
+    private static Player opponent(Player player) {
+        return switch (player) {
+            case white -> Player.black;
+            case black -> Player.white;
+        };
+    }
+
+    /**
+     * @param nodes  the number of leaf positions
+     * @param nanos  how long the count took
+     * @param divide the leaves under every move at the root, in generation order, empty unless asked for
+     */
+    public record Result(long nodes, long nanos, Map<String, Long> divide) {
+        public long nodesPerSecond() {
+            return nanos == 0 ? 0 : (long) (nodes / (nanos / 1_000_000_000d));
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder stringBuilder = new StringBuilder();
+            divide.forEach((move, moveNodes) -> stringBuilder.append(move).append(": ").append(moveNodes).append('\n'));
+            stringBuilder.append("Nodes: ").append(nodes).append('\n');
+            stringBuilder.append("Time: ").append(nanos / 1_000_000).append(" ms\n");
+            stringBuilder.append("NPS: ").append(nodesPerSecond());
+            return stringBuilder.toString();
+        }
+    }
+}
@@ -1,4 +1,32 @@
 package com.foster.board;
 
+/**
+ * Row 0 is the eighth rank and column 0 is the a file, the same order the FEN piece placement is written in.
+ */
 public record Position(int row, int column) {
+    private static final Position[] LOCATIONS = new Position[64];
+
+    static {
+        for (int location = 0; location < LOCATIONS.length; location++) {
+            LOCATIONS[location] = new Position(7 - location / 8, location % 8);
+        }
+    }
+
+    /**
+     * @return the bitboard location of this position, a1 is 0 and h8 is 63.
+     */
+    public int toLocation() {
+        return toLocation(row, column);
+    }
+
+    public static int toLocation(int row, int column) {
+        return (7 - row) * 8 + column;
+    }
+
+    /**
+     * @return the shared position of a bitboard location, so converting a move doesn't allocate.
+     */
+    public static Position fromLocation(int location) {
+        return LOCATIONS[location];
+    }
 }
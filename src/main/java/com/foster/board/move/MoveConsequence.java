@@ -1,9 +1,106 @@
 package com.foster.board.move;
 
+import com.foster.Player;
 import com.foster.board.Position;
 import com.foster.board.piece.Piece;
 
-import java.util.Optional;
+/**
+ * One entry of a board's undo stack. The entries are allocated once with the board and overwritten as moves are
+ * applied, so they are mutable rather than a record.
+ */
+public final class MoveConsequence {
+    private Piece capturedOpponentPiece;
+    private Piece movedPiece;
+    private Position previousPosition;
+    private Piece promotedPiece;
+    private Position promotedPiecePreviousPosition;
+    private int castlingRights;
+    private int enPassantLocation;
+    private int halfMoveClock;
+    private Player sideToMove;
+    private Piece castlingRook;
+    private Position castlingRookPreviousPosition;
 
-public record MoveConsequence(Optional<Piece> capturedOpponentPiece, Piece movedPiece, Position previousPosition) {
+    /**
+     * @param capturedOpponentPiece the piece taken by the move, null if nothing was taken
+     * @param castlingRights        the castling rights before the move
+     * @param enPassantLocation     the en passant location before the move, -1 if there wasn't one
+     * @param sideToMove            whose turn it was before the move, which needn't be the mover's
+     */
+    public void set(Piece capturedOpponentPiece, Piece movedPiece, Position previousPosition, int castlingRights,
+                    int enPassantLocation, int halfMoveClock, Player sideToMove) {
+        this.capturedOpponentPiece = capturedOpponentPiece;
+        this.movedPiece = movedPiece;
+        this.previousPosition = previousPosition;
+        this.promotedPiece = null;
+        this.promotedPiecePreviousPosition = null;
+        this.castlingRights = castlingRights;
+        this.enPassantLocation = enPassantLocation;
+        this.halfMoveClock = halfMoveClock;
+        this.sideToMove = sideToMove;
+        this.castlingRook = null;
+        this.castlingRookPreviousPosition = null;
+    }
+
+    /**
+     * Records the piece a pawn was promoted into and where that piece was before, call after {@link #set} on a
+     * promotion. A spare taken since an earlier promotion may be promoted into again, rolling back puts it back
+     * where it was taken.
+     */
+    public void setPromotedPiece(Piece promotedPiece, Position previousPosition) {
+        this.promotedPiece = promotedPiece;
+        this.promotedPiecePreviousPosition = previousPosition;
+    }
+
+    /**
+     * Records the rook that moved with the king, call after {@link #set} on a castling move.
+     */
+    public void setCastlingRook(Piece castlingRook, Position previousPosition) {
+        this.castlingRook = castlingRook;
+        this.castlingRookPreviousPosition = previousPosition;
+    }
+
+    public Piece capturedOpponentPiece() {
+        return capturedOpponentPiece;
+    }
+
+    public Piece movedPiece() {
+        return movedPiece;
+    }
+
+    public Position previousPosition() {
+        return previousPosition;
+    }
+
+    public Piece promotedPiece() {
+        return promotedPiece;
+    }
+
+    public Position promotedPiecePreviousPosition() {
+        return promotedPiecePreviousPosition;
+    }
+
+    public int castlingRights() {
+        return castlingRights;
+    }
+
+    public int enPassantLocation() {
+        return enPassantLocation;
+    }
+
+    public int halfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public Player sideToMove() {
+        return sideToMove;
+    }
+
+    public Piece castlingRook() {
+        return castlingRook;
+    }
+
+    public Position castlingRookPreviousPosition() {
+        return castlingRookPreviousPosition;
+    }
 }
@@ -5,22 +5,23 @@ import com.foster.Player;
 import com.foster.board.Move;
 import com.foster.board.Position;
 
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
 public class Bishop extends Piece {
     public Bishop(Player player, Position position) {
         super(player, position);
     }
 
     @Override
-    public List<Move> possibleMoves(ChessBoard board) {
-        return possibleStreamMoves(board).collect(Collectors.toList());
+    public int getType() {
+        return Move.BISHOP;
+    }
+
+    @Override
+    public int generateMoves(ChessBoard board, int[] moves, int offset) {
+        return generateMoves(board, moves, offset, ChessBoard.ALL_MOVES);
     }
 
     @Override
-    public Stream<Move> possibleStreamMoves(ChessBoard board) {
-        return generateMoves(true, 8, false, 8, board);
+    public int generateMoves(ChessBoard board, int[] moves, int offset, int kind) {
+        return generateMoves(true, 8, false, 8, board, moves, offset, kind);
     }
 }
@@ -4,23 +4,46 @@ import com.foster.ChessBoard;
 import com.foster.Player;
 import com.foster.board.Move;
 import com.foster.board.Position;
-
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import com.foster.board.zobrist.BBAttacks;
 
 public class King extends Piece {
+    private static final int WHITE_HOME = 4; // e1
+    private static final int BLACK_HOME = 60; // e8
+
     public King(Player player, Position position) {
         super(player, position);
     }
 
     @Override
-    public List<Move> possibleMoves(ChessBoard chessBoard) {
-        return possibleStreamMoves(chessBoard).collect(Collectors.toList());
+    public int getType() {
+        return Move.KING;
+    }
+
+    @Override
+    public int generateMoves(ChessBoard board, int[] moves, int offset) {
+        return generateMoves(board, moves, offset, ChessBoard.ALL_MOVES);
     }
 
     @Override
-    public Stream<Move> possibleStreamMoves(ChessBoard board) {
-        return generateMoves(true, 1, true, 1, board);
+    public int generateMoves(ChessBoard board, int[] moves, int offset, int kind) {
+        long mine = board.getOccupancy(player);
+        long opponent = board.getOccupancy(getOpponent());
+        int from = position.toLocation();
+        long targets = BBAttacks.getKingAttacks(from) & ~mine & getTargetMask(kind, opponent);
+        offset = addMoves(targets, opponent, board, moves, offset);
+        if (kind == ChessBoard.TACTICAL_MOVES) {
+            return offset;
+        }
+
+        // the board checks the king doesn't castle out of, through or into check
+        long occupied = mine | opponent;
+        boolean onHomeSquare = from == (player == Player.white ? WHITE_HOME : BLACK_HOME);
+        if (onHomeSquare && board.canCastle(player, true) && (occupied & (3L << (from + 1))) == 0L) {
+            offset = addMove(from + 2, Move.FLAG_CASTLE_KINGSIDE, opponent, board, moves, offset);
+        }
+        if (onHomeSquare && board.canCastle(player, false) && (occupied & (7L << (from - 3))) == 0L) {
+            offset = addMove(from - 2, Move.FLAG_CASTLE_QUEENSIDE, opponent, board, moves, offset);
+        }
+        return offset;
     }
 }
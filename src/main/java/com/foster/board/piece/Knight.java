@@ -4,10 +4,7 @@ import com.foster.ChessBoard;
 import com.foster.Player;
 import com.foster.board.Move;
 import com.foster.board.Position;
-
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import com.foster.board.zobrist.BBAttacks;
 
 public class Knight extends Piece {
     public Knight(Player player, Position position) {
@@ -15,46 +12,20 @@ public class Knight extends Piece {
     }
 
     @Override
-    public List<Move> possibleMoves(ChessBoard board) {
-        return possibleStreamMoves(board).collect(Collectors.toList());
+    public int getType() {
+        return Move.KNIGHT;
     }
 
     @Override
-    public Stream<Move> possibleStreamMoves(ChessBoard board) {
-        var row = position.row();
-        var column = position.column();
-
-        Stream.Builder<Move> builder = Stream.builder();
-        builder.add(new Move(this, new Position(row + 2, column + 1)));
-        builder.add(new Move(this, new Position(row + 2, column - 1)));
-        builder.add(new Move(this, new Position(row - 2, column + 1)));
-        builder.add(new Move(this, new Position(row - 2, column - 1)));
-        builder.add(new Move(this, new Position(row + 1, column + 2)));
-        builder.add(new Move(this, new Position(row + 1, column - 2)));
-        builder.add(new Move(this, new Position(row - 1, column + 2)));
-        builder.add(new Move(this, new Position(row - 1, column - 2)));
-
-        var myPositions = switch (player) {
-            case black -> board.getBlackPieces();
-            case white -> board.getWhitePieces();
-        };
+    public int generateMoves(ChessBoard board, int[] moves, int offset) {
+        return generateMoves(board, moves, offset, ChessBoard.ALL_MOVES);
+    }
 
-        return builder.build()
-                .filter(move -> myPositions.parallelStream()
-                        .map(piece -> piece.getPosition())
-                        .filter(position -> {
-                            var dest = move.destination();
-                            return position.column() == dest.column() && position.row() == dest.row();
-                        })
-                        .findAny()
-                        .isEmpty())
-                .filter(move -> {
-                    var destination = move.destination();
-                    var lowerLimit = 0;
-                    var upperLimit = 8;
-                    return (destination.row() >= lowerLimit && destination.row() < upperLimit)
-                            && (destination.column() >= lowerLimit && destination.column() < upperLimit);
-                })
-                .parallel();
+    @Override
+    public int generateMoves(ChessBoard board, int[] moves, int offset, int kind) {
+        long mine = board.getOccupancy(player);
+        long opponent = board.getOccupancy(getOpponent());
+        long targets = BBAttacks.getKnightAttacks(position.toLocation()) & ~mine & getTargetMask(kind, opponent);
+        return addMoves(targets, opponent, board, moves, offset);
     }
 }
@@ -4,89 +4,88 @@ import com.foster.ChessBoard;
 import com.foster.Player;
 import com.foster.board.Move;
 import com.foster.board.Position;
-
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import com.foster.board.zobrist.BBAttacks;
+import com.foster.board.zobrist.BBUtils;
 
 public class Pawn extends Piece {
-    private final Position startingPosition;
-
     public Pawn(Player player, Position position) {
         super(player, position);
-        startingPosition = position;
     }
 
     @Override
-    public List<Move> possibleMoves(ChessBoard board) {
-        return possibleStreamMoves(board).collect(Collectors.toList());
+    public int getType() {
+        return Move.PAWN;
     }
 
     @Override
-    public Stream<Move> possibleStreamMoves(ChessBoard chessBoard) {
-        Stream.Builder<Move> builder = Stream.builder();
-        int multipler = switch (player) {
-            case white -> -1;
-            case black -> 1;
-        };
+    public int generateMoves(ChessBoard chessBoard, int[] moves, int offset) {
+        return generateMoves(chessBoard, moves, offset, ChessBoard.ALL_MOVES);
+    }
 
-        if (position.equals(startingPosition)) {
-            var p1 = new Position(startingPosition.row() + (1 * multipler), startingPosition.column());
-            var p2 = new Position(startingPosition.row() + (2 * multipler), startingPosition.column());
-            if (areSpacesOpen(chessBoard, p1, p2)) {
-                builder.add(new Move(this, p2));
-            }
-        }
+    /**
+     * Pushes are quiet moves unless they promote, captures are always tactical.
+     */
+    @Override
+    public int generateMoves(ChessBoard chessBoard, int[] moves, int offset, int kind) {
+        boolean quiets = kind != ChessBoard.TACTICAL_MOVES;
+        boolean tactical = kind != ChessBoard.QUIET_MOVES;
+        boolean white = player == Player.white;
+        int from = position.toLocation();
+        long opponent = chessBoard.getOccupancy(getOpponent());
+        long empty = ~(opponent | chessBoard.getOccupancy(player));
+
+        // a pawn can only still be on its home rank if it hasn't moved, the board may have been loaded mid game
+        int homeRank = white ? BBUtils.RANK_2 : BBUtils.RANK_7;
+        long lastRank = BBUtils.maskRank[white ? BBUtils.RANK_8 : BBUtils.RANK_1];
 
-        int row = position.row() + (1 * multipler);
-        int maxBoardSize = 8;
-        if (row >= 0 && row < maxBoardSize) {
-            var p1 = new Position(row, position.column());
-            if (areSpacesOpen(chessBoard, p1)) {
-                builder.add(new Move(this, p1));
+        long push = BBAttacks.getPawnPushes(from, white) & empty;
+        if (push != 0L) {
+            int to = Long.numberOfTrailingZeros(push);
+            boolean promotion = (push & lastRank) != 0L;
+            if (promotion && tactical) {
+                offset = addPromotions(to, opponent, chessBoard, moves, offset);
+            } else if (!promotion && quiets) {
+                offset = addMove(to, Move.FLAG_NONE, opponent, chessBoard, moves, offset);
             }
 
-            if (position.column() + 1 < maxBoardSize) {
-                var p2 = new Position(row, position.column() + 1);
-                if (isSpaceTakenByOpposingPlayerPiece(chessBoard, p2)) {
-                    builder.add(new Move(this, p2));
-                }
+            long doublePush = BBAttacks.getPawnPushes(to, white) & empty;
+            if (quiets && BBUtils.getLocRow(from) == homeRank && doublePush != 0L) {
+                offset = addMove(Long.numberOfTrailingZeros(doublePush), Move.FLAG_NONE, opponent, chessBoard, moves, offset);
             }
+        }
+
+        if (!tactical) {
+            return offset;
+        }
 
-            if (position.column() - 1 >= 0) {
-                var p3 = new Position(row, position.column() - 1);
-                if (isSpaceTakenByOpposingPlayerPiece(chessBoard, p3)) {
-                    builder.add(new Move(this, p3));
-                }
+        long captures = BBAttacks.getPawnAttacks(from, white) & opponent;
+        while (captures != 0L) {
+            int to = Long.numberOfTrailingZeros(captures);
+            captures &= captures - 1;
+            if ((BBUtils.getSquare[to] & lastRank) != 0L) {
+                offset = addPromotions(to, opponent, chessBoard, moves, offset);
+            } else {
+                offset = addMove(to, Move.FLAG_NONE, opponent, chessBoard, moves, offset);
             }
         }
-        return builder.build();
-    }
 
-    private boolean areSpacesOpen(ChessBoard chessBoard, Position... positions) {
-        return Stream.concat(chessBoard.getWhitePieces().parallelStream(), chessBoard.getBlackPieces().parallelStream())
-                .map(piece -> piece.getPosition())
-                .filter(p -> {
-                    for (Position position : positions) {
-                        if (position.row() == p.row() && position.column() == p.column()) {
-                            return true;
-                        }
-                    }
-                    return false;
-                })
-                .findAny()
-                .isEmpty();
+        // only the opponent's double push leaves an en passant square on the rank in front of us
+        int enPassant = chessBoard.getEnPassantLocation();
+        int enPassantRank = white ? BBUtils.RANK_6 : BBUtils.RANK_3;
+        if (enPassant != -1 && BBUtils.getLocRow(enPassant) == enPassantRank
+                && (BBAttacks.getPawnAttacks(from, white) & BBUtils.getSquare[enPassant]) != 0L) {
+            moves[offset++] = Move.createCapture(from, enPassant, Move.PAWN, Move.PAWN, Move.FLAG_EN_PASSANT);
+        }
+        return offset;
     }
 
-    private boolean isSpaceTakenByOpposingPlayerPiece(ChessBoard chessBoard, Position position) {
-        var myPieces = switch (player) {
-            case black -> chessBoard.getWhitePieces();
-            case white -> chessBoard.getBlackPieces();
-        };
-        return myPieces.parallelStream()
-                .map(piece -> piece.getPosition())
-                .filter(p -> p.column() == position.column() && p.row() == position.row())
-                .findAny()
-                .isPresent();
+    /**
+     * Packs the four promotions to the location, the queen first.
+     */
+    private int addPromotions(int to, long opponent, ChessBoard chessBoard, int[] moves, int offset) {
+        for (int flag = Move.FLAG_PROMOTE_QUEEN; flag <= Move.FLAG_PROMOTE_BISHOP; flag++) {
+            offset = addMove(to, flag, opponent, chessBoard, moves, offset);
+        }
+        return offset;
     }
 }
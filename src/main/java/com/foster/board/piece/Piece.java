@@ -4,11 +4,20 @@ import com.foster.ChessBoard;
 import com.foster.Player;
 import com.foster.board.Move;
 import com.foster.board.Position;
+import com.foster.board.zobrist.BBMagicAttacks;
+import com.foster.board.zobrist.BBUtils;
 
-import java.util.*;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public abstract class Piece {
+    /**
+     * More than any one piece can ever have, a queen in the middle of an empty board has 27.
+     */
+    protected static final int MAX_MOVES = 32;
+
     protected Position position;
     protected final Player player;
 
@@ -39,221 +48,126 @@ public abstract class Piece {
         return position;
     }
 
-    public abstract List<Move> possibleMoves(ChessBoard board);
-
-    public abstract Stream<Move> possibleStreamMoves(ChessBoard board);
-
-    protected Stream<Move> generateMoves(boolean generateDiagonal, int maxDiagonal, boolean generateHorizontal, int maxHorizontal, ChessBoard chessBoard) {
-        var row = position.row();
-        var column = position.column();
-        var maxBoardSize = 8;
-
-        Stream.Builder<Move> builder = Stream.builder();
-        for (int i = 1; i <= maxBoardSize; i++) {
-            if (generateHorizontal && i < maxHorizontal + 1) {
-                builder.add(new Move(this, new Position(row, column - i)));
-                builder.add(new Move(this, new Position(row, column + i)));
-                builder.add(new Move(this, new Position(row - i, column)));
-                builder.add(new Move(this, new Position(row + i, column)));
-            }
-
-            if (generateDiagonal && i < maxDiagonal + 1) {
-                builder.add(new Move(this, new Position(row + i, column + i)));
-                builder.add(new Move(this, new Position(row + i, column - i)));
-                builder.add(new Move(this, new Position(row - i, column + i)));
-                builder.add(new Move(this, new Position(row - i, column - i)));
-            }
-        }
-
-        final List<Piece> myPositions = new ArrayList<>(17);
-        final List<Piece> opponentPositions = new ArrayList<>(17);
-        switch (player) {
-            case white -> {
-                myPositions.addAll(chessBoard.getWhitePieces());
-                opponentPositions.addAll(chessBoard.getBlackPieces());
-            }
-            case black -> {
-                myPositions.addAll(chessBoard.getBlackPieces());
-                opponentPositions.addAll(chessBoard.getWhitePieces());
-            }
-        }
-
-        final var diagonalBlocks = new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE};
-        final var horizontalBlocks = new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE};
-        var debug = true;
-        Stream<Move> stream = builder.build()
-                .filter(move -> {
-                    Position destination = move.destination();
-                    var c = destination.column();
-                    var r = destination.row();
-                    return r != row || c != column;
-                })
-                .filter(move -> {
-                    var c = move.destination().column();
-                    return c >= 0 && c < maxBoardSize;
-                })
-                .filter(move -> {
-                    var r = move.destination().row();
-                    return r >= 0 && r < maxBoardSize;
-                })
-                .filter(move -> {
-                    // TODO This is a potential optimization since we can likely match at the end of process.  I need to think more about the math.
-                    Optional<Position> potentialBlocker = myPositions.parallelStream()
-                            .map(piece -> piece.getPosition())
-                            .filter(position -> {
-                                var dest = move.destination();
-                                return position.column() == dest.column() && position.row() == dest.row();
-                            })
-                            .findAny();
-
-                    var openSpace = potentialBlocker.isEmpty();
-                    if (potentialBlocker.isPresent()) {
-                        Position destination = potentialBlocker.get();
-                        var r = destination.row();
-                        var c = destination.column();
-                        checkIfBlockedHorizontally(row, column, horizontalBlocks, r, c, false);
-                        checkIfBlockedDiagonally(row, column, diagonalBlocks, r, c, false);
-                    }
-                    return openSpace;
-                })
-                .peek(move -> {
-                    // TODO This is a potential optimization since we can likely match at the end of process.  I need to think more about the math.
-                    Optional<Position> potentialBlocker = opponentPositions.parallelStream()
-                            .map(piece -> piece.getPosition())
-                            .filter(position -> {
-                                var dest = move.destination();
-                                return position.column() == dest.column() && position.row() == dest.row();
-                            })
-                            .findAny();
-                    if (potentialBlocker.isPresent()) {
-                        // the move is good but we need to block future moves past this point
-                        var destination = potentialBlocker.get();
-                        var r = destination.row();
-                        var c = destination.column();
-                        checkIfBlockedHorizontally(row, column, horizontalBlocks, r, c, true);
-                        checkIfBlockedDiagonally(row, column, diagonalBlocks, r, c, true);
-                    }
-                })
-                .peek(move -> {
-                    if (debug) {
-                    }
-                })
-                .filter(move -> filterVerticalBlocks(row, column, horizontalBlocks, move))
-                .filter(move -> filterDiagonalBlocks(row, column, diagonalBlocks, move))
-                .peek(move -> {
-                    if (debug) {
-                        for (int block : horizontalBlocks) {
-                        }
-                    }
-                });
-        return stream;
+    /**
+     * @return the type this piece is packed as, one of {@link Move#PAWN} through {@link Move#KING}.
+     */
+    public abstract int getType();
+
+    /**
+     * Writes the moves of this piece into the buffer, packed as described on {@link Move}. Nothing is allocated per
+     * move, so this is what the search calls.
+     *
+     * @param board  the board the piece stands on
+     * @param moves  the buffer to write the moves into
+     * @param offset the first free index in the buffer
+     * @return the first free index after the moves of this piece.
+     */
+    public abstract int generateMoves(ChessBoard board, int[] moves, int offset);
+
+    /**
+     * Writes only the moves of one kind, see {@link ChessBoard#generateMoves(Player, int[], int, int)}. The pieces
+     * leave the other kind out while generating, a piece that doesn't know how generates all its moves and drops
+     * the others.
+     */
+    public int generateMoves(ChessBoard board, int[] moves, int offset, int kind) {
+        return ChessBoard.retainMoves(kind, moves, offset, generateMoves(board, moves, offset));
     }
 
-    private void checkIfBlockedDiagonally(int row, int column, int[] blockedArray, int r, int c, boolean inclusive) {
-        int rise = c - column;
-        int run = r - row;
-        if (rise != 0 && run != 0 && Math.abs(rise / run) == 1) {
-            if (r < row && c > column) {
-                if (r > blockedArray[0]) {
-                    blockedArray[0] = inclusive ? r - 1 : r;
-                }
-            }
-
-            if (r > row && c > column) {
-                if (r < blockedArray[1]) {
-                    blockedArray[1] = inclusive ? r + 1 : r;
-                }
-            }
+    public List<Move> possibleMoves(ChessBoard board) {
+        return possibleStreamMoves(board).collect(Collectors.toList());
+    }
 
-            if (r < row && c < column) {
-                if (r > blockedArray[2]) {
-                    blockedArray[2] = inclusive ? r - 1 : r;
-                }
-            }
+    public Stream<Move> possibleStreamMoves(ChessBoard board) {
+        int[] moves = new int[MAX_MOVES];
+        int count = generateMoves(board, moves, 0);
+        return Arrays.stream(moves, 0, count)
+                .mapToObj(move -> new Move(this, Position.fromLocation(Move.getTo(move)),
+                        Move.getPromotionType(Move.getFlag(move))));
+    }
 
-            if (r > row && c < column) {
-                if (r < blockedArray[3]) {
-                    blockedArray[3] = inclusive ? r + 1 : r;
-                }
-            }
-        }
+    /**
+     * Moves along the lines and diagonals, no further than the maximum number of squares, stopping before our own
+     * pieces and on the opponent's.
+     */
+    protected int generateMoves(boolean generateDiagonal, int maxDiagonal, boolean generateHorizontal, int maxHorizontal,
+                                ChessBoard chessBoard, int[] moves, int offset) {
+        return generateMoves(generateDiagonal, maxDiagonal, generateHorizontal, maxHorizontal, chessBoard, moves, offset,
+                ChessBoard.ALL_MOVES);
     }
 
-    private static void checkIfBlockedHorizontally(int row, int column, int[] horizontalBlocks, int r, int c, boolean inclusive) {
-        if (c == column) {
-            if (r < row && r > horizontalBlocks[2]) {
-                horizontalBlocks[2] = inclusive ? r - 1 : r;
-            }
+    protected int generateMoves(boolean generateDiagonal, int maxDiagonal, boolean generateHorizontal, int maxHorizontal,
+                                ChessBoard chessBoard, int[] moves, int offset, int kind) {
+        long mine = chessBoard.getOccupancy(player);
+        long opponent = chessBoard.getOccupancy(getOpponent());
+        long occupied = mine | opponent;
+        int from = position.toLocation();
 
-            if (r > row && r < horizontalBlocks[3]) {
-                horizontalBlocks[3] = inclusive ? r + 1 : r;
-            }
+        long targets = 0L;
+        if (generateHorizontal) {
+            targets |= BBMagicAttacks.getRookAttacks(from, occupied) & getRangeMask(from, maxHorizontal);
         }
-
-        if (r == row) {
-            if (c < column && c > horizontalBlocks[0]) {
-                horizontalBlocks[0] = inclusive ? c - 1 : c;
-            }
-
-            if (c > column && c < horizontalBlocks[1]) {
-                horizontalBlocks[1] = inclusive ? c + 1 : c;
-            }
+        if (generateDiagonal) {
+            targets |= BBMagicAttacks.getBishopAttacks(from, occupied) & getRangeMask(from, maxDiagonal);
         }
+        return addMoves(targets & ~mine & getTargetMask(kind, opponent), opponent, chessBoard, moves, offset);
     }
 
-    private boolean filterDiagonalBlocks(int row, int column, int[] blockedArray, Move move) {
-        var c = move.destination().column();
-        var r = move.destination().row();
-        int rise = c - column;
-        int run = r - row;
-        var notBlocked = true;
-        if (rise != 0 && run != 0 && Math.abs(rise / run) == 1) {
-            if (r < row && c > column) {
-                notBlocked = r > blockedArray[0];
-            }
-
-            if (r > row && c > column) {
-                notBlocked = r < blockedArray[1];
-            }
-
-            if (r < row && c < column) {
-                notBlocked = r > blockedArray[2];
-            }
+    /**
+     * @return the squares moves of the kind can go to, for pieces whose only tactical moves are captures.
+     */
+    protected static long getTargetMask(int kind, long opponent) {
+        return switch (kind) {
+            case ChessBoard.TACTICAL_MOVES -> opponent;
+            case ChessBoard.QUIET_MOVES -> ~opponent;
+            default -> -1L;
+        };
+    }
 
-            if (r > row && c < column) {
-                notBlocked = r < blockedArray[3];
+    /**
+     * @return every square no more than range rows and columns away from the location.
+     */
+    private static long getRangeMask(int location, int range) {
+        if (range >= 7) {
+            return -1L;
+        }
+        int row = BBUtils.getLocRow(location);
+        int col = BBUtils.getLocCol(location);
+        long mask = 0L;
+        for (int r = Math.max(0, row - range); r <= Math.min(7, row + range); r++) {
+            for (int c = Math.max(0, col - range); c <= Math.min(7, col + range); c++) {
+                mask |= BBUtils.getSquare(r, c);
             }
         }
-
-        return notBlocked;
+        return mask;
     }
 
-    private static boolean filterVerticalBlocks(int row, int column, int[] horizontalBlocks, Move move) {
-        var notBlocked = true;
-        var dest = move.destination();
-        var c = dest.column();
-        var r = dest.row();
-        if (c == column) {
-            if (r < row && horizontalBlocks[2] != Integer.MIN_VALUE) {
-                notBlocked = r > horizontalBlocks[2];
-            }
-
-            if (r > row && horizontalBlocks[3] != Integer.MAX_VALUE) {
-                notBlocked = r < horizontalBlocks[3];
-            }
+    protected int addMoves(long targets, long opponent, ChessBoard chessBoard, int[] moves, int offset) {
+        while (targets != 0L) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            offset = addMove(to, Move.FLAG_NONE, opponent, chessBoard, moves, offset);
         }
+        return offset;
+    }
 
-        if (r == row) {
-            if (c < column && horizontalBlocks[0] != Integer.MIN_VALUE) {
-                notBlocked = c > horizontalBlocks[0];
-            }
-
-            if (c > column && horizontalBlocks[1] != Integer.MAX_VALUE) {
-                notBlocked = c < horizontalBlocks[1];
-            }
+    /**
+     * Packs a move of this piece to the location, as a capture if an opponent's piece stands there.
+     */
+    protected int addMove(int to, int flag, long opponent, ChessBoard chessBoard, int[] moves, int offset) {
+        int from = position.toLocation();
+        if ((opponent & (1L << to)) != 0L) {
+            moves[offset] = Move.createCapture(from, to, getType(), chessBoard.getPiece(to).getType(), flag);
+        } else {
+            moves[offset] = Move.createMove(from, to, getType(), flag);
         }
+        return offset + 1;
+    }
 
-        return notBlocked;
+    protected Player getOpponent() {
+        return switch (player) {
+            case black -> Player.white;
+            case white -> Player.black;
+        };
     }
 
     @Override
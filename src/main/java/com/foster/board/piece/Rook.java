@@ -5,10 +5,6 @@ import com.foster.Player;
 import com.foster.board.Move;
 import com.foster.board.Position;
 
-import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
 public class Rook extends Piece {
 
     public Rook(Player player, Position position) {
@@ -16,12 +12,17 @@ public class Rook extends Piece {
     }
 
     @Override
-    public List<Move> possibleMoves(ChessBoard board) {
-        return possibleStreamMoves(board).collect(Collectors.toList());
+    public int getType() {
+        return Move.ROOK;
+    }
+
+    @Override
+    public int generateMoves(ChessBoard board, int[] moves, int offset) {
+        return generateMoves(board, moves, offset, ChessBoard.ALL_MOVES);
     }
 
     @Override
-    public Stream<Move> possibleStreamMoves(ChessBoard board) {
-        return generateMoves(false, 8, true, 8, board);
+    public int generateMoves(ChessBoard board, int[] moves, int offset, int kind) {
+        return generateMoves(false, 8, true, 8, board, moves, offset, kind);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,252 @@
+package com.foster.board.zobrist;
+
+import com.foster.board.Move;
+
+/**
+ * Attack sets for the bitboard board. Every method returns a bitboard of the squares a piece standing on the passed
+ * location attacks, the caller decides whether its own pieces need to be masked off. Knights, kings and pawns are
+ * looked up in tables filled when the class loads, the sliding pieces are in {@link BBMagicAttacks}.
+ */
+public class BBAttacks {
+    private static final int[][] KNIGHT_OFFSETS = {{2, 1}, {2, -1}, {-2, 1}, {-2, -1}, {1, 2}, {1, -2}, {-1, 2}, {-1, -2}};
+    private static final int[][] KING_OFFSETS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final int WHITE = 0;
+    private static final int BLACK = 1;
+
+    /**
+     * Piece values for {@link #see}, indexed by piece type. Only their order and rough ratios matter there.
+     */
+    private static final int[] SEE_PIECE_VALUES = {100, 325, 325, 500, 975, 20000};
+
+    /**
+     * The swap list of {@link #see}, one per thread like the move stack so a search doesn't allocate one per
+     * capture. No exchange on one square has more than 32 captures.
+     */
+    private static final ThreadLocal<int[]> seeGain = ThreadLocal.withInitial(() -> new int[32]);
+
+    private static final long[] knightAttacks = new long[64];
+    private static final long[] kingAttacks = new long[64];
+    private static final long[][] pawnAttacks = new long[2][64];
+    private static final long[][] pawnPushes = new long[2][64];
+    private static final long[][] between = new long[64][64];
+    private static final long[][] line = new long[64][64];
+
+    static {
+        for (int loc = 0; loc < 64; loc++) {
+            knightAttacks[loc] = step(loc, KNIGHT_OFFSETS);
+            kingAttacks[loc] = step(loc, KING_OFFSETS);
+            pawnAttacks[WHITE][loc] = step(loc, new int[][]{{1, 1}, {1, -1}});
+            pawnAttacks[BLACK][loc] = step(loc, new int[][]{{-1, 1}, {-1, -1}});
+            pawnPushes[WHITE][loc] = step(loc, new int[][]{{1, 0}});
+            pawnPushes[BLACK][loc] = step(loc, new int[][]{{-1, 0}});
+        }
+
+        for (int a = 0; a < 64; a++) {
+            for (int b = 0; b < 64; b++) {
+                if (a == b) {
+                    continue;
+                }
+                long squares = BBUtils.getSquare[a] | BBUtils.getSquare[b];
+                if ((BBMagicAttacks.getRookAttacks(a, 0L) & BBUtils.getSquare[b]) != 0L) {
+                    between[a][b] = BBMagicAttacks.getRookAttacks(a, squares) & BBMagicAttacks.getRookAttacks(b, squares);
+                    line[a][b] = BBMagicAttacks.getRookAttacks(a, 0L) & BBMagicAttacks.getRookAttacks(b, 0L) | squares;
+                } else if ((BBMagicAttacks.getBishopAttacks(a, 0L) & BBUtils.getSquare[b]) != 0L) {
+                    between[a][b] = BBMagicAttacks.getBishopAttacks(a, squares) & BBMagicAttacks.getBishopAttacks(b, squares);
+                    line[a][b] = BBMagicAttacks.getBishopAttacks(a, 0L) & BBMagicAttacks.getBishopAttacks(b, 0L) | squares;
+                }
+            }
+        }
+    }
+
+    public static long getKnightAttacks(int loc) {
+        return knightAttacks[loc];
+    }
+
+    public static long getKingAttacks(int loc) {
+        return kingAttacks[loc];
+    }
+
+    /**
+     * @param loc   the location of the pawn
+     * @param white true if the pawn is white, i.e. it is capturing up the board.
+     * @return the two (or one, on the edge files) squares the pawn captures on.
+     */
+    public static long getPawnAttacks(int loc, boolean white) {
+        return pawnAttacks[white ? WHITE : BLACK][loc];
+    }
+
+    /**
+     * @param loc   the location of the pawn
+     * @param white true if the pawn is white, i.e. it is moving up the board.
+     * @return the square one step in front of the pawn, none from the last rank.
+     */
+    public static long getPawnPushes(int loc, boolean white) {
+        return pawnPushes[white ? WHITE : BLACK][loc];
+    }
+
+    /**
+     * @return the squares strictly between the two locations when they share a rank, file or diagonal, none
+     * otherwise.
+     */
+    public static long getBetween(int a, int b) {
+        return between[a][b];
+    }
+
+    /**
+     * @return the whole rank, file or diagonal running through both locations, none if they don't share one. A piece
+     * pinned against its king can only move along this line.
+     */
+    public static long getLine(int a, int b) {
+        return line[a][b];
+    }
+
+    /**
+     * Every piece of the passed sets attacking the location when the board is occupied as passed. The caller picks
+     * the sets and the occupancy, so the same lookup answers what attacks a square a king is about to step on, or one
+     * whose en passant capture has just emptied two squares of a rank.
+     *
+     * @param white true if the location belongs to white, so the pawns passed are black pawns capturing down the
+     *              board.
+     * @return a bitboard of the attackers.
+     */
+    public static long getAttackers(int loc, long occupancy, boolean white, long pawns, long knights,
+                                    long bishopsQueens, long rooksQueens, long king) {
+        return (getPawnAttacks(loc, white) & pawns)
+                | (getKnightAttacks(loc) & knights)
+                | (getKingAttacks(loc) & king)
+                | (BBMagicAttacks.getBishopAttacks(loc, occupancy) & bishopsQueens)
+                | (BBMagicAttacks.getRookAttacks(loc, occupancy) & rooksQueens);
+    }
+
+    /**
+     * The opponent's pieces attacking the location of the side owning it, with the board occupied as passed.
+     */
+    public static long getAttackers(ZobristChessBoard b, int loc, long occupancy, boolean white) {
+        return white
+                ? getAttackers(loc, occupancy, true, b.black_pawns, b.black_knights,
+                b.black_bishops | b.black_queens, b.black_rooks | b.black_queens, b.black_king)
+                : getAttackers(loc, occupancy, false, b.white_pawns, b.white_knights,
+                b.white_bishops | b.white_queens, b.white_rooks | b.white_queens, b.white_king);
+    }
+
+    /**
+     * The pieces of ours that are the only piece between our king and an enemy slider looking at it. The slider
+     * attacks are looked up as if only the enemy pieces stood on the board, so they run through our pieces up to the
+     * pinner.
+     *
+     * @param bishopsQueens the enemy pieces moving diagonally
+     * @param rooksQueens   the enemy pieces moving along ranks and files
+     * @return a bitboard of the pinned pieces.
+     */
+    public static long getPinned(int kingLoc, long own, long enemy, long bishopsQueens, long rooksQueens) {
+        long pinners = (BBMagicAttacks.getBishopAttacks(kingLoc, enemy) & bishopsQueens)
+                | (BBMagicAttacks.getRookAttacks(kingLoc, enemy) & rooksQueens);
+
+        long pinned = 0L;
+        while (pinners != 0L) {
+            int pinner = Long.numberOfTrailingZeros(pinners);
+            pinners &= pinners - 1;
+            long blockers = between[kingLoc][pinner] & (own | enemy);
+            if ((blockers & (blockers - 1)) == 0L && (blockers & own) != 0L) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Static exchange evaluation, the swap algorithm from the chess programming wiki: both sides keep taking on the
+     * destination with their least valuable attacker, each free to stop when going on loses, and the material won
+     * or lost by the side moving is what's left. Attacks are looked up again on the emptied board after every
+     * capture, so sliders behind the piece that just took join in. Pins and promotions aren't considered.
+     * <p>
+     * The piece bitboards are those of both sides together, white tells them apart.
+     *
+     * @return what the move wins in {@link #SEE_PIECE_VALUES} units, negative if it loses material, 0 for a quiet
+     * move to a safe square.
+     */
+    public static int see(int move, long occupancy, long white, long pawns, long knights, long bishops, long rooks,
+                          long queens, long kings) {
+        int to = Move.getTo(move);
+        long fromSquare = BBUtils.getSquare[Move.getFrom(move)];
+        boolean whiteMoving = (white & fromSquare) != 0L;
+        if (Move.getFlag(move) == Move.FLAG_EN_PASSANT) {
+            occupancy ^= BBUtils.getSquare[whiteMoving ? to - 8 : to + 8];
+        }
+
+        int[] gain = seeGain.get();
+        int d = 0;
+        gain[0] = Move.isCapture(move) ? SEE_PIECE_VALUES[Move.getCapturedPieceType(move)] : 0;
+        int attacker = Move.getPieceType(move);
+        boolean whiteToTake = whiteMoving;
+        long bishopsQueens = bishops | queens;
+        long rooksQueens = rooks | queens;
+        do {
+            d++;
+            // what the side taking next has won if the piece that just took is taken in turn
+            gain[d] = SEE_PIECE_VALUES[attacker] - gain[d - 1];
+            occupancy ^= fromSquare;
+            whiteToTake = !whiteToTake;
+
+            long attackers = ((getPawnAttacks(to, true) & pawns & ~white)
+                    | (getPawnAttacks(to, false) & pawns & white)
+                    | (getKnightAttacks(to) & knights)
+                    | (getKingAttacks(to) & kings)
+                    | (BBMagicAttacks.getBishopAttacks(to, occupancy) & bishopsQueens)
+                    | (BBMagicAttacks.getRookAttacks(to, occupancy) & rooksQueens))
+                    & occupancy & (whiteToTake ? white : ~white);
+
+            // the least valuable attacker takes next
+            long candidates;
+            if ((candidates = attackers & pawns) != 0L) {
+                attacker = Move.PAWN;
+            } else if ((candidates = attackers & knights) != 0L) {
+                attacker = Move.KNIGHT;
+            } else if ((candidates = attackers & bishops) != 0L) {
+                attacker = Move.BISHOP;
+            } else if ((candidates = attackers & rooks) != 0L) {
+                attacker = Move.ROOK;
+            } else if ((candidates = attackers & queens) != 0L) {
+                attacker = Move.QUEEN;
+            } else if ((candidates = attackers & kings) != 0L) {
+                attacker = Move.KING;
+            }
+            fromSquare = candidates & -candidates;
+        } while (fromSquare != 0L);
+
+        while (--d > 0) {
+            gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+        }
+        return gain[0];
+    }
+
+    /**
+     * Is the square attacked by the opponent of the side owning it?
+     *
+     * @param b      the board
+     * @param square a bitboard with a single set bit, usually a king
+     * @param white  true if the square belongs to white, so we look for black attackers
+     * @return true if any enemy piece attacks the square.
+     */
+    public static boolean isSquareAttacked(ZobristChessBoard b, long square, boolean white) {
+        if (square == 0L) {
+            return false;
+        }
+        return getAttackers(b, BBUtils.getLocFromBitboard(square), b.all_pieces, white) != 0L;
+    }
+
+    private static long step(int loc, int[][] offsets) {
+        int row = BBUtils.getLocRow(loc);
+        int col = BBUtils.getLocCol(loc);
+        long attacks = 0L;
+        for (int[] offset : offsets) {
+            int r = row + offset[0];
+            int c = col + offset[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                attacks |= BBUtils.getSquare(r, c);
+            }
+        }
+        return attacks;
+    }
+}
@@ -0,0 +1,144 @@
+package com.foster.board.zobrist;
+
+/**
+ * Magic bitboard attack sets for the sliding pieces. The occupancy of the squares a rook or bishop could be blocked
+ * on is multiplied by a magic number, and the top bits of the product index a table holding the attacks for that
+ * occupancy, so looking an attack up is one multiply, one shift and one array load.
+ * <p>
+ * The magic numbers are searched for when the class is loaded, with a fixed seed so every run finds the same ones.
+ * The tables are built from a plain ray walk, which is slow but obviously right.
+ */
+public class BBMagicAttacks {
+    private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] rookMask = new long[64];
+    private static final long[] rookMagic = new long[64];
+    private static final int[] rookShift = new int[64];
+    private static final long[][] rookAttacks = new long[64][];
+
+    private static final long[] bishopMask = new long[64];
+    private static final long[] bishopMagic = new long[64];
+    private static final int[] bishopShift = new int[64];
+    private static final long[][] bishopAttacks = new long[64][];
+
+    private static long seed = 0x9e3779b97f4a7c15L;
+
+    static {
+        for (int loc = 0; loc < 64; loc++) {
+            rookMask[loc] = getRelevantOccupancy(loc, ROOK_DIRECTIONS);
+            rookShift[loc] = 64 - Long.bitCount(rookMask[loc]);
+            rookAttacks[loc] = new long[1 << Long.bitCount(rookMask[loc])];
+            rookMagic[loc] = findMagic(loc, ROOK_DIRECTIONS, rookMask[loc], rookShift[loc], rookAttacks[loc]);
+
+            bishopMask[loc] = getRelevantOccupancy(loc, BISHOP_DIRECTIONS);
+            bishopShift[loc] = 64 - Long.bitCount(bishopMask[loc]);
+            bishopAttacks[loc] = new long[1 << Long.bitCount(bishopMask[loc])];
+            bishopMagic[loc] = findMagic(loc, BISHOP_DIRECTIONS, bishopMask[loc], bishopShift[loc], bishopAttacks[loc]);
+        }
+    }
+
+    public static long getRookAttacks(int loc, long occupancy) {
+        return rookAttacks[loc][(int) (((occupancy & rookMask[loc]) * rookMagic[loc]) >>> rookShift[loc])];
+    }
+
+    public static long getBishopAttacks(int loc, long occupancy) {
+        return bishopAttacks[loc][(int) (((occupancy & bishopMask[loc]) * bishopMagic[loc]) >>> bishopShift[loc])];
+    }
+
+    public static long getQueenAttacks(int loc, long occupancy) {
+        return getRookAttacks(loc, occupancy) | getBishopAttacks(loc, occupancy);
+    }
+
+    /**
+     * Tries sparse random numbers until one maps every occupancy of the mask to a table slot without two
+     * occupancies with different attacks sharing a slot, and fills the table on the way.
+     */
+    private static long findMagic(int loc, int[][] directions, long mask, int shift, long[] table) {
+        int size = table.length;
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long occupancy = 0L;
+        for (int i = 0; i < size; i++) {
+            // walks every subset of the mask, the carry rippler
+            occupancies[i] = occupancy;
+            attacks[i] = slide(loc, occupancy, directions);
+            occupancy = (occupancy - mask) & mask;
+        }
+
+        int[] used = new int[size];
+        for (int attempt = 1; ; attempt++) {
+            long magic = nextRandom() & nextRandom() & nextRandom();
+            if (Long.bitCount((mask * magic) & 0xff00000000000000L) < 6) {
+                continue;
+            }
+
+            boolean collision = false;
+            for (int i = 0; i < size && !collision; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> shift);
+                if (used[index] != attempt) {
+                    used[index] = attempt;
+                    table[index] = attacks[i];
+                } else if (table[index] != attacks[i]) {
+                    collision = true;
+                }
+            }
+
+            if (!collision) {
+                return magic;
+            }
+        }
+    }
+
+    /**
+     * The squares whose occupancy changes the attacks from the location, the last square of every ray is left out
+     * since the ray stops there whether it is occupied or not.
+     */
+    private static long getRelevantOccupancy(int loc, int[][] directions) {
+        int row = BBUtils.getLocRow(loc);
+        int col = BBUtils.getLocCol(loc);
+        long mask = 0L;
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (isOnBoard(r + direction[0], c + direction[1])) {
+                mask |= BBUtils.getSquare(r, c);
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return mask;
+    }
+
+    private static long slide(int loc, long occupancy, int[][] directions) {
+        int row = BBUtils.getLocRow(loc);
+        int col = BBUtils.getLocCol(loc);
+        long attacks = 0L;
+        for (int[] direction : directions) {
+            int r = row + direction[0];
+            int c = col + direction[1];
+            while (isOnBoard(r, c)) {
+                long square = BBUtils.getSquare(r, c);
+                attacks |= square;
+                if ((occupancy & square) != 0L) {
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean isOnBoard(int r, int c) {
+        return r >= 0 && r < 8 && c >= 0 && c < 8;
+    }
+
+    private static long nextRandom() {
+        // xorshift64*
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545f4914f6cdd1dL;
+    }
+}
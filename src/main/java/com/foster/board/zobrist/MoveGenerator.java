@@ -0,0 +1,387 @@
+package com.foster.board.zobrist;
+
+import com.foster.ChessBoard;
+import com.foster.board.Move;
+
+/**
+ * Generates the moves of a {@link ZobristChessBoard} straight from its bitboards into an int buffer, nothing is
+ * allocated. {@link #generate(ZobristChessBoard, int[], int)} writes pseudo-legal moves, which
+ * {@link ZobristChessBoard#makeMove(int)} refuses when they leave the king in check, and
+ * {@link #generateLegal(ZobristChessBoard, int[], int)} writes only the legal ones.
+ * <p>
+ * A search keeps all its moves on one stack per thread, see {@link #getMoveStack()}. Each ply writes its moves after
+ * the moves of the ply above it and passes the end of its slice down as the offset of the next ply.
+ */
+public class MoveGenerator {
+    /**
+     * The deepest a search can go, every ply gets a slice of at most {@link ZobristChessBoard#MAX_MOVES} moves.
+     */
+    public static final int MAX_PLY = 128;
+
+    private static final ThreadLocal<int[]> moveStack =
+            ThreadLocal.withInitial(() -> new int[MAX_PLY * ZobristChessBoard.MAX_MOVES]);
+
+    private static final long WHITE_KINGSIDE_EMPTY = 0x60L; // f1 | g1
+    private static final long WHITE_QUEENSIDE_EMPTY = 0xeL; // b1 | c1 | d1
+    private static final long BLACK_KINGSIDE_EMPTY = WHITE_KINGSIDE_EMPTY << 56;
+    private static final long BLACK_QUEENSIDE_EMPTY = WHITE_QUEENSIDE_EMPTY << 56;
+
+    /**
+     * @return the move stack owned by the calling thread.
+     */
+    public static int[] getMoveStack() {
+        return moveStack.get();
+    }
+
+    /**
+     * Writes the moves of the side to move.
+     *
+     * @param b      the board
+     * @param moves  the buffer to write the moves into
+     * @param offset the first free index in the buffer
+     * @return the number of moves written.
+     */
+    public static int generate(ZobristChessBoard b, int[] moves, int offset) {
+        return generate(b, b.white_to_move, moves, offset);
+    }
+
+    /**
+     * Writes the moves of the passed side, whether it is their turn or not.
+     */
+    public static int generate(ZobristChessBoard b, boolean white, int[] moves, int offset) {
+        long own = white ? b.white_pieces : b.black_pieces;
+        long enemy = white ? b.black_pieces : b.white_pieces;
+        int index = offset;
+
+        index = generatePawnMoves(b, white, enemy, moves, index);
+
+        long knights = white ? b.white_knights : b.black_knights;
+        while (knights != 0L) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            index = addMoves(b, from, BBAttacks.getKnightAttacks(from) & ~own, Move.KNIGHT, enemy, moves, index);
+        }
+
+        long bishops = white ? b.white_bishops : b.black_bishops;
+        while (bishops != 0L) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            long targets = BBMagicAttacks.getBishopAttacks(from, b.all_pieces) & ~own;
+            index = addMoves(b, from, targets, Move.BISHOP, enemy, moves, index);
+        }
+
+        long rooks = white ? b.white_rooks : b.black_rooks;
+        while (rooks != 0L) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            long targets = BBMagicAttacks.getRookAttacks(from, b.all_pieces) & ~own;
+            index = addMoves(b, from, targets, Move.ROOK, enemy, moves, index);
+        }
+
+        long queens = white ? b.white_queens : b.black_queens;
+        while (queens != 0L) {
+            int from = Long.numberOfTrailingZeros(queens);
+            queens &= queens - 1;
+            long targets = BBMagicAttacks.getQueenAttacks(from, b.all_pieces) & ~own;
+            index = addMoves(b, from, targets, Move.QUEEN, enemy, moves, index);
+        }
+
+        long king = white ? b.white_king : b.black_king;
+        if (king != 0L) {
+            int from = Long.numberOfTrailingZeros(king);
+            index = addMoves(b, from, BBAttacks.getKingAttacks(from) & ~own, Move.KING, enemy, moves, index);
+            index = generateCastling(b, white, king, from, moves, index);
+        }
+        return index - offset;
+    }
+
+    /**
+     * Writes only the legal moves of the side to move. Rather than playing each move and looking at the king
+     * afterwards, the pieces giving check and the pieces pinned against the king are found once and turned into
+     * masks:
+     * <ul>
+     * <li>in double check only the king can move,</li>
+     * <li>in check every other piece has to take the checker or step between it and the king,</li>
+     * <li>a pinned piece has to stay on the line through its king and the pinner,</li>
+     * <li>the king can't step on a square that is attacked once the king has left its own, so it can't back away
+     * along the line of the slider checking it.</li>
+     * </ul>
+     * En passant empties two squares of one rank, so it is verified exactly rather than through the masks. A board
+     * without a king for the side to move gets the pseudo-legal moves.
+     *
+     * @param b      the board
+     * @param moves  the buffer to write the moves into
+     * @param offset the first free index in the buffer
+     * @return the number of moves written, 0 when the side to move is mated or stalemated.
+     */
+    public static int generateLegal(ZobristChessBoard b, int[] moves, int offset) {
+        return generateLegal(b, moves, offset, ChessBoard.ALL_MOVES, -1L);
+    }
+
+    /**
+     * Like {@link #generateLegal(ZobristChessBoard, int[], int)}, but leaves out whatever isn't asked for before
+     * looking at it: the pieces not on the from squares and the targets not of the kind.
+     *
+     * @param kind      one of the kinds on {@link ChessBoard}, tactical moves are captures and promotions
+     * @param fromMask  the squares of the pieces whose moves are wanted, -1 for all of them
+     */
+    public static int generateLegal(ZobristChessBoard b, int[] moves, int offset, int kind, long fromMask) {
+        boolean white = b.white_to_move;
+        long king = white ? b.white_king : b.black_king;
+        if (king == 0L) {
+            int end = offset + generate(b, white, moves, offset);
+            return ChessBoard.retainMoves(kind, moves, offset, end) - offset;
+        }
+        long own = white ? b.white_pieces : b.black_pieces;
+        long enemy = white ? b.black_pieces : b.white_pieces;
+        long targetMask = switch (kind) {
+            case ChessBoard.TACTICAL_MOVES -> enemy;
+            case ChessBoard.QUIET_MOVES -> ~enemy;
+            default -> -1L;
+        };
+        int kingLoc = Long.numberOfTrailingZeros(king);
+        int index = offset;
+
+        long kingTargets = (king & fromMask) != 0L ? BBAttacks.getKingAttacks(kingLoc) & ~own & targetMask : 0L;
+        long withoutKing = b.all_pieces ^ king;
+        while (kingTargets != 0L) {
+            int to = Long.numberOfTrailingZeros(kingTargets);
+            kingTargets &= kingTargets - 1;
+            if (BBAttacks.getAttackers(b, to, withoutKing, white) == 0L) {
+                index = addMoves(b, kingLoc, BBUtils.getSquare[to], Move.KING, enemy, moves, index);
+            }
+        }
+
+        long checkers = BBAttacks.getAttackers(b, kingLoc, b.all_pieces, white);
+        if (Long.bitCount(checkers) > 1) {
+            return index - offset;
+        }
+        long checkMask = -1L;
+        if (checkers != 0L) {
+            checkMask = checkers | BBAttacks.getBetween(kingLoc, Long.numberOfTrailingZeros(checkers));
+        } else if (kind != ChessBoard.TACTICAL_MOVES && (king & fromMask) != 0L) {
+            index = generateCastling(b, white, king, kingLoc, moves, index);
+        }
+        long pinned = white
+                ? BBAttacks.getPinned(kingLoc, own, enemy, b.black_bishops | b.black_queens, b.black_rooks | b.black_queens)
+                : BBAttacks.getPinned(kingLoc, own, enemy, b.white_bishops | b.white_queens, b.white_rooks | b.white_queens);
+
+        index = generateLegalPawnMoves(b, white, enemy, kingLoc, checkMask, pinned, kind, fromMask, moves, index);
+
+        checkMask &= targetMask;
+        long knights = (white ? b.white_knights : b.black_knights) & ~pinned & fromMask;
+        while (knights != 0L) {
+            int from = Long.numberOfTrailingZeros(knights);
+            knights &= knights - 1;
+            long targets = BBAttacks.getKnightAttacks(from) & ~own & checkMask;
+            index = addMoves(b, from, targets, Move.KNIGHT, enemy, moves, index);
+        }
+
+        long bishops = (white ? b.white_bishops : b.black_bishops) & fromMask;
+        while (bishops != 0L) {
+            int from = Long.numberOfTrailingZeros(bishops);
+            bishops &= bishops - 1;
+            long targets = BBMagicAttacks.getBishopAttacks(from, b.all_pieces) & ~own & checkMask
+                    & getPinMask(kingLoc, from, pinned);
+            index = addMoves(b, from, targets, Move.BISHOP, enemy, moves, index);
+        }
+
+        long rooks = (white ? b.white_rooks : b.black_rooks) & fromMask;
+        while (rooks != 0L) {
+            int from = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            long targets = BBMagicAttacks.getRookAttacks(from, b.all_pieces) & ~own & checkMask
+                    & getPinMask(kingLoc, from, pinned);
+            index = addMoves(b, from, targets, Move.ROOK, enemy, moves, index);
+        }
+
+        long queens = (white ? b.white_queens : b.black_queens) & fromMask;
+        while (queens != 0L) {
+            int from = Long.numberOfTrailingZeros(queens);
+            queens &= queens - 1;
+            long targets = BBMagicAttacks.getQueenAttacks(from, b.all_pieces) & ~own & checkMask
+                    & getPinMask(kingLoc, from, pinned);
+            index = addMoves(b, from, targets, Move.QUEEN, enemy, moves, index);
+        }
+        return index - offset;
+    }
+
+    private static long getPinMask(int kingLoc, int from, long pinned) {
+        return (pinned & BBUtils.getSquare[from]) != 0L ? BBAttacks.getLine(kingLoc, from) : -1L;
+    }
+
+    /**
+     * Pushes are quiet moves unless they promote, captures are always tactical.
+     */
+    private static int generateLegalPawnMoves(ZobristChessBoard b, boolean white, long enemy, int kingLoc,
+                                              long checkMask, long pinned, int kind, long fromMask,
+                                              int[] moves, int index) {
+        boolean quiets = kind != ChessBoard.TACTICAL_MOVES;
+        boolean tactical = kind != ChessBoard.QUIET_MOVES;
+        long pawns = (white ? b.white_pawns : b.black_pawns) & fromMask;
+        long empty = ~b.all_pieces;
+        long lastRank = white ? BBUtils.maskRank[BBUtils.RANK_8] : BBUtils.maskRank[BBUtils.RANK_1];
+        int homeRank = white ? BBUtils.RANK_2 : BBUtils.RANK_7;
+        long epSquare = b.enPassantLoc == -1 ? 0L : BBUtils.getSquare[b.enPassantLoc];
+
+        while (pawns != 0L) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long allowed = checkMask & getPinMask(kingLoc, from, pinned);
+
+            long push = BBAttacks.getPawnPushes(from, white) & empty;
+            if (push != 0L) {
+                int to = Long.numberOfTrailingZeros(push);
+                if ((push & allowed) != 0L) {
+                    if ((push & lastRank) != 0L) {
+                        if (tactical) {
+                            index = addPromotions(from, to, -1, moves, index);
+                        }
+                    } else if (quiets) {
+                        moves[index++] = Move.createMove(from, to, Move.PAWN, Move.FLAG_NONE);
+                    }
+                }
+                long doublePush = BBAttacks.getPawnPushes(to, white) & empty & allowed;
+                if (quiets && BBUtils.getLocRow(from) == homeRank && doublePush != 0L) {
+                    moves[index++] = Move.createMove(from, Long.numberOfTrailingZeros(doublePush), Move.PAWN, Move.FLAG_NONE);
+                }
+            }
+
+            if (!tactical) {
+                continue;
+            }
+            long attacks = BBAttacks.getPawnAttacks(from, white);
+            long captures = attacks & enemy & allowed;
+            while (captures != 0L) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                int captured = b.getPieceTypeAt(BBUtils.getSquare[to]);
+                if ((BBUtils.getSquare[to] & lastRank) != 0L) {
+                    index = addPromotions(from, to, captured, moves, index);
+                } else {
+                    moves[index++] = Move.createCapture(from, to, Move.PAWN, captured, Move.FLAG_NONE);
+                }
+            }
+
+            if ((attacks & epSquare) != 0L && isLegalEnPassant(b, white, from, kingLoc)) {
+                moves[index++] = Move.createCapture(from, b.enPassantLoc, Move.PAWN, Move.PAWN, Move.FLAG_EN_PASSANT);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Plays the capture on the occupancy alone and looks for attackers of the king. This catches the captured pawn
+     * having been the checker as well as both pawns leaving a rank the king shares with an enemy rook.
+     */
+    private static boolean isLegalEnPassant(ZobristChessBoard b, boolean white, int from, int kingLoc) {
+        long captured = BBUtils.getSquare[white ? b.enPassantLoc - 8 : b.enPassantLoc + 8];
+        long occupancy = (b.all_pieces ^ BBUtils.getSquare[from] ^ captured) | BBUtils.getSquare[b.enPassantLoc];
+        long attackers = white
+                ? BBAttacks.getAttackers(kingLoc, occupancy, true, b.black_pawns & ~captured, b.black_knights,
+                b.black_bishops | b.black_queens, b.black_rooks | b.black_queens, b.black_king)
+                : BBAttacks.getAttackers(kingLoc, occupancy, false, b.white_pawns & ~captured, b.white_knights,
+                b.white_bishops | b.white_queens, b.white_rooks | b.white_queens, b.white_king);
+        return attackers == 0L;
+    }
+
+    private static int generatePawnMoves(ZobristChessBoard b, boolean white, long enemy, int[] moves, int index) {
+        long pawns = white ? b.white_pawns : b.black_pawns;
+        long empty = ~b.all_pieces;
+        int up = white ? 8 : -8;
+        long lastRank = white ? BBUtils.maskRank[BBUtils.RANK_8] : BBUtils.maskRank[BBUtils.RANK_1];
+        long doublePushRank = white ? BBUtils.maskRank[BBUtils.RANK_4] : BBUtils.maskRank[BBUtils.RANK_5];
+
+        long singlePushes = (white ? pawns << 8 : pawns >>> 8) & empty;
+        long doublePushes = (white ? singlePushes << 8 : singlePushes >>> 8) & empty & doublePushRank;
+
+        long pushes = singlePushes;
+        while (pushes != 0L) {
+            int to = Long.numberOfTrailingZeros(pushes);
+            pushes &= pushes - 1;
+            if ((BBUtils.getSquare[to] & lastRank) != 0L) {
+                index = addPromotions(to - up, to, -1, moves, index);
+            } else {
+                moves[index++] = Move.createMove(to - up, to, Move.PAWN, Move.FLAG_NONE);
+            }
+        }
+
+        while (doublePushes != 0L) {
+            int to = Long.numberOfTrailingZeros(doublePushes);
+            doublePushes &= doublePushes - 1;
+            moves[index++] = Move.createMove(to - 2 * up, to, Move.PAWN, Move.FLAG_NONE);
+        }
+
+        long epSquare = b.enPassantLoc == -1 ? 0L : BBUtils.getSquare[b.enPassantLoc];
+        while (pawns != 0L) {
+            int from = Long.numberOfTrailingZeros(pawns);
+            pawns &= pawns - 1;
+            long attacks = BBAttacks.getPawnAttacks(from, white);
+
+            long captures = attacks & enemy;
+            while (captures != 0L) {
+                int to = Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                int captured = b.getPieceTypeAt(BBUtils.getSquare[to]);
+                if ((BBUtils.getSquare[to] & lastRank) != 0L) {
+                    index = addPromotions(from, to, captured, moves, index);
+                } else {
+                    moves[index++] = Move.createCapture(from, to, Move.PAWN, captured, Move.FLAG_NONE);
+                }
+            }
+
+            if ((attacks & epSquare) != 0L) {
+                moves[index++] = Move.createCapture(from, b.enPassantLoc, Move.PAWN, Move.PAWN, Move.FLAG_EN_PASSANT);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Castling needs the right, the squares between king and rook empty, and the king not to start on, pass or land on
+     * an attacked square.
+     */
+    private static int generateCastling(ZobristChessBoard b, boolean white, long king, int from, int[] moves, int index) {
+        boolean kingSide = white ? b.white_castle_k : b.black_castle_k;
+        boolean queenSide = white ? b.white_castle_q : b.black_castle_q;
+        if ((!kingSide && !queenSide) || BBAttacks.isSquareAttacked(b, king, white)) {
+            return index;
+        }
+
+        long kingSideEmpty = white ? WHITE_KINGSIDE_EMPTY : BLACK_KINGSIDE_EMPTY;
+        if (kingSide && (b.all_pieces & kingSideEmpty) == 0L
+                && !BBAttacks.isSquareAttacked(b, king << 1, white)
+                && !BBAttacks.isSquareAttacked(b, king << 2, white)) {
+            moves[index++] = Move.createMove(from, from + 2, Move.KING, Move.FLAG_CASTLE_KINGSIDE);
+        }
+
+        long queenSideEmpty = white ? WHITE_QUEENSIDE_EMPTY : BLACK_QUEENSIDE_EMPTY;
+        if (queenSide && (b.all_pieces & queenSideEmpty) == 0L
+                && !BBAttacks.isSquareAttacked(b, king >>> 1, white)
+                && !BBAttacks.isSquareAttacked(b, king >>> 2, white)) {
+            moves[index++] = Move.createMove(from, from - 2, Move.KING, Move.FLAG_CASTLE_QUEENSIDE);
+        }
+        return index;
+    }
+
+    private static int addPromotions(int from, int to, int captured, int[] moves, int index) {
+        for (int flag = Move.FLAG_PROMOTE_QUEEN; flag <= Move.FLAG_PROMOTE_BISHOP; flag++) {
+            moves[index++] = captured == -1
+                    ? Move.createMove(from, to, Move.PAWN, flag)
+                    : Move.createCapture(from, to, Move.PAWN, captured, flag);
+        }
+        return index;
+    }
+
+    private static int addMoves(ZobristChessBoard b, int from, long targets, int pieceType, long enemy, int[] moves, int index) {
+        while (targets != 0L) {
+            int to = Long.numberOfTrailingZeros(targets);
+            targets &= targets - 1;
+            long square = BBUtils.getSquare[to];
+            moves[index++] = (square & enemy) != 0L
+                    ? Move.createCapture(from, to, pieceType, b.getPieceTypeAt(square), Move.FLAG_NONE)
+                    : Move.createMove(from, to, pieceType, Move.FLAG_NONE);
+        }
+        return index;
+    }
+}
@@ -1,6 +1,9 @@
 package com.foster.board.zobrist;
 
 import com.foster.ChessBoard;
+import com.foster.Player;
+import com.foster.board.Move;
+import com.foster.board.piece.Piece;
 
 public class Zobrist {
     public static final long[][] pawn =
@@ -219,29 +222,76 @@ public class Zobrist {
         return getKeyForSquare(from_loc, piece) ^ getKeyForSquare(to_loc, piece);
     }
 
+    /**
+     * The key of the piece standing on its own position, for boards that keep piece objects rather than bitboards.
+     */
+    public static long getKeyForPiece(Piece piece) {
+        int loc = piece.getPosition().toLocation();
+        int side = piece.getPlayer() == Player.white ? 1 : 0;
+        return switch (piece.getType()) {
+            case Move.PAWN -> pawn[side][loc];
+            case Move.KNIGHT -> knight[side][loc];
+            case Move.BISHOP -> bishop[side][loc];
+            case Move.ROOK -> rook[side][loc];
+            case Move.QUEEN -> queen[side][loc];
+            case Move.KING -> king[side][loc];
+            default -> throw new IllegalStateException("Unexpected value: " + piece);
+        };
+    }
+
+    /**
+     * Keys a board by its piece placement, castling rights, en passant square and side to move, the same way
+     * {@link #getKeyForBoard(ZobristChessBoard)} keys the bitboard board.
+     */
     public static long getKeyForBoard(ChessBoard b) {
-        return 0l;
-//        long key = 0;
-//
-//        for (int loc = 0; loc < 64; loc++) {
-//            key ^= getKeyForSquare(loc, b.getPieceAt(loc));
-//        }
-//
-//        if (b.white_castle_k)
-//            key ^= whiteKingSideCastling;
-//        if (b.white_castle_q)
-//            key ^= whiteQueenSideCastling;
-//        if (b.black_castle_k)
-//            key ^= blackKingSideCastling;
-//        if (b.black_castle_q)
-//            key ^= blackQueenSideCastling;
-//
-//        if (b.enPassantLoc != -1)
-//            key ^= passantColumn[BBUtils.getLocCol(b.enPassantLoc)];
-//
-//        if (b.white_to_move)
-//            key ^= whiteMove;
-//
-//        return key;
+        long key = 0;
+        for (Piece piece : b.getWhitePieces()) {
+            key ^= getKeyForPiece(piece);
+        }
+        for (Piece piece : b.getBlackPieces()) {
+            key ^= getKeyForPiece(piece);
+        }
+
+        if (b.canCastle(Player.white, true))
+            key ^= whiteKingSideCastling;
+        if (b.canCastle(Player.white, false))
+            key ^= whiteQueenSideCastling;
+        if (b.canCastle(Player.black, true))
+            key ^= blackKingSideCastling;
+        if (b.canCastle(Player.black, false))
+            key ^= blackQueenSideCastling;
+
+        if (b.getEnPassantLocation() != -1)
+            key ^= passantColumn[BBUtils.getLocCol(b.getEnPassantLocation())];
+
+        if (b.getSideToMove() == Player.white)
+            key ^= whiteMove;
+
+        return key;
+    }
+
+    public static long getKeyForBoard(ZobristChessBoard b) {
+        long key = 0;
+
+        for (int loc = 0; loc < 64; loc++) {
+            key ^= getKeyForSquare(loc, b.getPieceAt(loc));
+        }
+
+        if (b.white_castle_k)
+            key ^= whiteKingSideCastling;
+        if (b.white_castle_q)
+            key ^= whiteQueenSideCastling;
+        if (b.black_castle_k)
+            key ^= blackKingSideCastling;
+        if (b.black_castle_q)
+            key ^= blackQueenSideCastling;
+
+        if (b.enPassantLoc != -1)
+            key ^= passantColumn[BBUtils.getLocCol(b.enPassantLoc)];
+
+        if (b.white_to_move)
+            key ^= whiteMove;
+
+        return key;
     }
 }
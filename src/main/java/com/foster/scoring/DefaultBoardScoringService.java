@@ -3,6 +3,7 @@ package com.foster.scoring;
 import com.foster.BoardScoringService;
 import com.foster.ChessBoard;
 import com.foster.Player;
+import com.foster.board.Move;
 import com.foster.board.piece.*;
 
 import java.util.HashMap;
@@ -39,6 +40,20 @@ public class DefaultBoardScoringService implements BoardScoringService {
         return scorePieces(myPieces, opponentsPieces);
     }
 
+    @Override
+    public double getPieceValue(int pieceType) {
+        Class<?> clazz = switch (pieceType) {
+            case Move.PAWN -> Pawn.class;
+            case Move.KNIGHT -> Knight.class;
+            case Move.BISHOP -> Bishop.class;
+            case Move.ROOK -> Rook.class;
+            case Move.QUEEN -> Queen.class;
+            case Move.KING -> King.class;
+            default -> throw new IllegalStateException("Unexpected value: " + pieceType);
+        };
+        return rankRubrik.get(clazz);
+    }
+
     @Override
     public double scorePieces(List<Piece> myPieces, List<Piece> opponentsPieces) {
         var myScore = scorePieces(myPieces);
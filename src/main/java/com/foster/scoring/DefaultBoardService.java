@@ -5,86 +5,97 @@ import com.foster.BoardScoringService;
 import com.foster.ChessBoard;
 import com.foster.Player;
 import com.foster.board.Move;
-import com.foster.board.piece.Piece;
-
-import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-
+import com.foster.board.Position;
+import com.foster.board.zobrist.BBUtils;
+import com.foster.board.zobrist.MoveGenerator;
+import com.foster.search.QuiescenceSearch;
+import com.foster.search.TranspositionTable;
+
+import java.util.Optional;
+
+/**
+ * Scores every move by the average over the opponent's replies. Leaves are scored once the captures on the board are
+ * played out by a {@link QuiescenceSearch}. Leaf scores and the scores of finished nodes go in a
+ * {@link TranspositionTable}, leaves at depth 0 and nodes at the depth left below them, rounded to whole points.
+ */
 public class DefaultBoardService implements BestMoveService {
+    private static final int DEFAULT_HASH_MEGABYTES = 16;
+
     private final int maxDepth;
     private final Player player;
-    private final BoardScoringService boardScoringService;
-
-    private final Map<String, Double> cachedBoardScores = new HashMap<>();
-
-    private final Map<String, ProcessedMoveNode> cachedProcessedMoveNodes = new HashMap<>();
+    private final QuiescenceSearch quiescenceSearch;
+    private final TranspositionTable transpositionTable;
 
     public DefaultBoardService(Player player, BoardScoringService boardScoringService, int maxDepth) {
+        this(player, boardScoringService, maxDepth, new TranspositionTable(DEFAULT_HASH_MEGABYTES));
+    }
+
+    public DefaultBoardService(Player player, BoardScoringService boardScoringService, int maxDepth,
+                               TranspositionTable transpositionTable) {
         this.player = player;
         this.maxDepth = maxDepth;
-        this.boardScoringService = boardScoringService;
+        this.quiescenceSearch = new QuiescenceSearch(boardScoringService);
+        this.transpositionTable = transpositionTable;
     }
 
     public Optional<Move> findBestMove(ChessBoard chessBoard) {
-        var p = findBestMove(chessBoard, 1, null);
-        return Optional.ofNullable(p.move);
-    }
-
-    private ProcessedMoveNode findBestMove(ChessBoard chessBoard, int currentDepth, ProcessedMoveNode originalNode) {
-        if (currentDepth == maxDepth) {
-            double score = getCachedMove(chessBoard, player);
-            return new ProcessedMoveNode(originalNode.move, originalNode.FEN, score, false);
+        var p = findBestMove(chessBoard, 1, MoveGenerator.getMoveStack(), 0);
+        if (p == null) {
+            return Optional.empty();
         }
+        return Optional.of(toMove(chessBoard, p.move));
+    }
 
+    /**
+     * Our moves and the opponent's replies go on the move stack from the offset on, deeper levels write theirs
+     * after them.
+     */
+    private ProcessedMoveNode findBestMove(ChessBoard chessBoard, int currentDepth, int[] moveStack, int offset) {
         if (currentDepth > maxDepth) {
             throw new IllegalStateException("current depth is greater than max");
         }
 
-        var myPieces = switch (player) {
-            case black -> chessBoard.getBlackPieces();
-            case white -> chessBoard.getWhitePieces();
+        var opponent = switch (player) {
+            case black -> Player.white;
+            case white -> Player.black;
         };
-        var myMoves = myPieces.parallelStream()
-                .flatMap((Function<Piece, Stream<Move>>) piece -> piece.possibleStreamMoves(chessBoard))
-                .collect(Collectors.toList());
-        ProcessedMoveNode bestMove = new ProcessedMoveNode();
-        for (int i = 0; i < myMoves.size(); i++) {
-            var myMove = myMoves.get(i);
-            String FEN = chessBoard.applyMove(myMove, true).get();
-            var currentNode = cachedProcessedMoveNodes.computeIfAbsent(FEN, key -> new ProcessedMoveNode(myMove, key, Double.MIN_VALUE, false));
-            if (currentNode.complete) {
+        var myMovesEnd = offset + chessBoard.generateMoves(player, moveStack, offset);
+        ProcessedMoveNode bestMove = null;
+        for (int i = offset; i < myMovesEnd; i++) {
+            var myMove = moveStack[i];
+            if (!chessBoard.makeMove(myMove)) {
+                continue;
+            }
+            long key = chessBoard.getKey();
+            int depthLeft = maxDepth - currentDepth;
+            long entry = transpositionTable.probe(key);
+            ProcessedMoveNode currentNode;
+            if (entry != 0L && TranspositionTable.getDepth(entry) >= depthLeft) {
+                currentNode = new ProcessedMoveNode(myMove, key, TranspositionTable.getScore(entry, 0), true);
                 System.out.println("Joining nodes " + currentNode);
             } else {
-                var opponentsPieces = switch (player) {
-                    case black -> chessBoard.getWhitePieces();
-                    case white -> chessBoard.getBlackPieces();
-                };
-                List<Move> opponentsMoves = opponentsPieces.parallelStream()
-                        .flatMap((Function<Piece, Stream<Move>>) piece -> piece.possibleStreamMoves(chessBoard))
-                        .collect(Collectors.toList());
-                List<ProcessedMoveNode> processedOpponentMoves = new ArrayList<>(opponentsMoves.size());
-                for (int j = 0; j < opponentsMoves.size(); j++) {
+                currentNode = new ProcessedMoveNode(myMove, key, Double.MIN_VALUE, false);
+                var opponentsMovesEnd = myMovesEnd + chessBoard.generateMoves(opponent, moveStack, myMovesEnd);
+                double totalScore = 0;
+                int processedOpponentMoves = 0;
+                for (int j = myMovesEnd; j < opponentsMovesEnd; j++) {
 //                String format = "i = [%s] j = [%s] depth = [%s]";
 //                String msg = String.format(format, i, j, currentDepth);
 //                System.out.println(msg);
-                    var opponentsMove = opponentsMoves.get(j);
-                    chessBoard.applyMove(opponentsMove, false);
-                    var processedOpponentsMove = findBestMove(chessBoard, currentDepth + 1, currentNode);
+                    if (!chessBoard.makeMove(moveStack[j])) {
+                        continue;
+                    }
+                    totalScore += scoreReply(chessBoard, currentDepth + 1, moveStack, opponentsMovesEnd);
                     chessBoard.rollbackToPreviousMove(false);
-                    processedOpponentMoves.add(processedOpponentsMove);
+                    processedOpponentMoves++;
                 }
-                DoubleSummaryStatistics doubleSummaryStatistics = processedOpponentMoves.stream()
-                        .mapToDouble(processedMoveNode -> processedMoveNode.score)
-                        .summaryStatistics();
                 currentNode.complete = true;
-                currentNode.score = doubleSummaryStatistics.getAverage();
-                cachedBoardScores.put(FEN, currentNode.score);
+                currentNode.score = processedOpponentMoves == 0 ? 0 : totalScore / processedOpponentMoves;
+                store(key, myMove, currentNode.score, depthLeft);
             }
 
             chessBoard.rollbackToPreviousMove(false);
-            if (bestMove.move == null || currentNode.score > bestMove.score) {
+            if (bestMove == null || currentNode.score > bestMove.score) {
                 bestMove = currentNode;
                 System.out.println(currentNode);
             }
@@ -93,41 +104,70 @@ public class DefaultBoardService implements BestMoveService {
         return bestMove;
     }
 
-    private double getCachedMove(ChessBoard chessBoard, Player player) {
-        var FEN = chessBoard.translateToFEN();
-        var score = cachedBoardScores.compute(FEN, (key, value) -> {
-            var result = value;
-            if (value == null) {
-                System.out.println("Miss FEN = " + key);
-                result = boardScoringService.scoreBoard(chessBoard, player);
-            } else {
-                System.out.println("Hit FEN = " + key);
-            }
-            return result;
-        });
+    /**
+     * @return the score of the board once the opponent has replied, the board itself at the deepest level and our
+     * best move from there otherwise.
+     */
+    private double scoreReply(ChessBoard chessBoard, int currentDepth, int[] moveStack, int offset) {
+        if (currentDepth == maxDepth) {
+            return getCachedMove(chessBoard, player, moveStack, offset);
+        }
+        var bestMove = findBestMove(chessBoard, currentDepth, moveStack, offset);
+        return bestMove == null ? Double.MIN_VALUE : bestMove.score;
+    }
+
+    /**
+     * Turns the packed move the search settled on back into a move of one of the board's pieces.
+     */
+    private Move toMove(ChessBoard chessBoard, int move) {
+        var pieces = switch (player) {
+            case black -> chessBoard.getBlackPieces();
+            case white -> chessBoard.getWhitePieces();
+        };
+        var from = Position.fromLocation(Move.getFrom(move));
+        var piece = pieces.stream()
+                .filter(p -> p.getPosition().equals(from))
+                .findAny()
+                .orElseThrow(() -> new IllegalStateException("No piece at " + from));
+        return new Move(piece, Position.fromLocation(Move.getTo(move)), Move.getPromotionType(Move.getFlag(move)));
+    }
+
+    private double getCachedMove(ChessBoard chessBoard, Player player, int[] moveStack, int offset) {
+        long key = chessBoard.getKey();
+        long entry = transpositionTable.probe(key);
+        if (entry != 0L) {
+            return TranspositionTable.getScore(entry, 0);
+        }
+        double score = quiescenceSearch.search(chessBoard, player, moveStack, offset);
+        store(key, Move.NO_MOVE, score, 0);
         return score;
     }
 
+    /**
+     * Stores the score at ply 0, clamped to what the table holds, so it reads back unchanged.
+     */
+    private void store(long key, int move, double score, int depth) {
+        int rounded = (int) Math.round(Math.max(Short.MIN_VALUE + 1, Math.min(Short.MAX_VALUE, score)));
+        transpositionTable.store(key, move, rounded, depth, TranspositionTable.BOUND_EXACT, 0);
+    }
+
     private static final class ProcessedMoveNode {
-        private Move move;
-        private String FEN;
-        private Double score = Double.MIN_VALUE;
+        private int move;
+        private long key;
+        private double score;
         private boolean complete = false;
 
-        public ProcessedMoveNode(Move move, String FEN, double score, boolean complete) {
+        public ProcessedMoveNode(int move, long key, double score, boolean complete) {
             this.move = move;
-            this.FEN = FEN;
+            this.key = key;
             this.score = score;
             this.complete = complete;
         }
 
-        public ProcessedMoveNode() {
-        }
-
         @Override
         public String toString() {
-            String format = "piece = [%s] dest = [%s] score = [%s] FEN = [%s] ";
-            return String.format(format, move.piece(), move.destination(), score, FEN);
+            String format = "move = [%s] score = [%s] key = [%016x] ";
+            return String.format(format, BBUtils.moveToString(move), score, key);
         }
     }
 }
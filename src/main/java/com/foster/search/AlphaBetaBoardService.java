@@ -0,0 +1,718 @@
+package com.foster.search;
+
+import com.foster.BestMoveService;
+import com.foster.BoardScoringService;
+import com.foster.ChessBoard;
+import com.foster.Player;
+import com.foster.SearchLimits;
+import com.foster.board.Move;
+import com.foster.board.zobrist.MoveGenerator;
+import com.foster.board.zobrist.ZobristChessBoard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Negamax search with alpha-beta pruning. Every node is scored from the point of view of the side to move there, so
+ * a reply's score is the negation of the score one ply down, and as soon as one reply proves a move worse than a
+ * move already found the remaining replies are skipped.
+ * <p>
+ * Scores are ints, the board scoring service's score rounded towards zero. Leaves are scored once the captures on
+ * the board are played out by a {@link QuiescenceSearch}. A mate is worth {@link #MATE}
+ * less the number of plies it takes, so shorter mates score higher, and a stalemate is worth 0. So is a position
+ * that repeats one since the last capture or pawn move, or that the fifty-move rule draws.
+ * <p>
+ * The search deepens one ply at a time, searching the best move of the last iteration first, until one of the
+ * {@link SearchLimits} is reached. The clock and node count are looked at every few thousand nodes, and once a limit
+ * is reached the iteration in progress is abandoned and the best move of the last completed one is played. The first
+ * iteration is always completed, so there is always a move to play. On the clock a {@link TimeManager} decides
+ * after every iteration whether to start another.
+ * <p>
+ * Every node searched is stored in a {@link TranspositionTable}. When a position comes round again, through a
+ * different order of the same moves or in the next iteration, a deep enough entry either settles the node outright
+ * or at least tells which move to search first. The other moves follow in the order of {@link MoveOrdering}, handed
+ * out a stage at a time by a {@link MovePicker} so nodes cut off early don't generate their quiet moves.
+ * <p>
+ * Only the first move of a node is searched with the full window, the principal variation search. The ordering
+ * expects it to be the best, so the others are first searched with a zero window just to prove they're no better,
+ * which is cheaper, and only a move that turns out better after all is searched again with the full window. The root
+ * window itself is narrowed to a few pawns around the last iteration's score, the aspiration window, and widened
+ * again whenever the score falls outside it.
+ * <p>
+ * Not every move gets the full depth. Before searching its moves a node lets the opponent move twice in a row, the
+ * null move, with the depth reduced: if we're still above beta after passing our turn, a real move would be too and
+ * the node is cut off. Passing is never better than moving except in zugzwang, so there is no null move in check or
+ * for a side left with only pawns, where zugzwang is common. Late quiet moves, the ones the ordering least expects to
+ * matter, are searched with a reduced depth, more the deeper the node and the later the move, and only searched
+ * again at full depth if they beat alpha anyway.
+ * <p>
+ * Close to the leaves, nodes outside the principal variation are pruned by their board score, with the margins of
+ * {@link PruningMargins}: a node far above beta is cut off outright, one far below alpha searches only its captures,
+ * or only its tactical moves and checks when less far below, and once enough quiet moves have been searched the rest
+ * are left out.
+ * <p>
+ * The principal variation, the line both sides are expected to play, is kept in a triangular table while searching:
+ * every node that raises alpha puts its move in front of the line its child left, at no cost in nodes. Lines cut
+ * short by a transposition table hit are followed on through the table's moves. Every completed iteration hands its
+ * result, line included, to the listener set with {@link #setIterationListener}.
+ * <p>
+ * The board has to have the player to move, the bitboard board plays moves for whoever's turn it is.
+ */
+public class AlphaBetaBoardService implements BestMoveService {
+    public static final int MATE = 30000;
+
+    /**
+     * Above any score the search can return, mate included.
+     */
+    static final int INFINITY = 32000;
+
+    /**
+     * How many nodes go by between looks at the clock.
+     */
+    private static final int LIMIT_CHECK_INTERVAL = 4096;
+
+    private static final int DEFAULT_HASH_MEGABYTES = 16;
+
+    /**
+     * The half move clock the fifty-move rule draws at.
+     */
+    private static final int FIFTY_MOVE_PLIES = 100;
+
+    /**
+     * Iterations from this depth on search the root with a window around the last iteration's score, of this many
+     * pawns either way to start with.
+     */
+    private static final int ASPIRATION_MIN_DEPTH = 4;
+    private static final int ASPIRATION_WINDOW_PAWNS = 2;
+
+    /**
+     * Null moves are tried from this depth on, shallower nodes are cheap enough to search in full.
+     */
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+
+    /**
+     * Quiet moves from this one on, counted from 1 in the order searched, are searched with reduced depth.
+     */
+    private static final int LATE_MOVE_NUMBER = 4;
+    private static final int LATE_MOVE_MIN_DEPTH = 3;
+
+    /**
+     * The deepest nodes pruned by the margins of {@link PruningMargins}, further from the leaves they're too risky.
+     */
+    private static final int REVERSE_FUTILITY_MAX_DEPTH = 6;
+    private static final int FUTILITY_MAX_DEPTH = 3;
+    private static final int RAZORING_MAX_DEPTH = 2;
+    private static final int LATE_MOVE_PRUNING_MAX_DEPTH = 3;
+
+    /**
+     * The late move reductions, indexed by depth and move number, growing with the logarithm of both.
+     */
+    private static final int[][] REDUCTIONS = new int[64][64];
+
+    static {
+        for (int depth = 1; depth < REDUCTIONS.length; depth++) {
+            for (int moveNumber = 1; moveNumber < REDUCTIONS[depth].length; moveNumber++) {
+                REDUCTIONS[depth][moveNumber] = (int) (0.75 + Math.log(depth) * Math.log(moveNumber) / 2.25);
+            }
+        }
+    }
+
+    /**
+     * Which depths a helper thread skips, helper i skips depth d when (d + SKIP_PHASE[i]) / SKIP_SIZE[i] is odd. The
+     * helpers spread over the depths around the main thread's so they fill the table with different work.
+     */
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final Player player;
+    private final QuiescenceSearch quiescenceSearch;
+    private final MoveOrdering moveOrdering = new MoveOrdering();
+    private final MovePicker[] movePickers = new MovePicker[MoveGenerator.MAX_PLY];
+
+    /**
+     * The principal variation of the node at each ply, pvLength[ply] moves of the row from the node's move on.
+     */
+    private final int[][] pvTable = new int[MoveGenerator.MAX_PLY + 1][MoveGenerator.MAX_PLY + 1];
+    private final int[] pvLength = new int[MoveGenerator.MAX_PLY + 1];
+    private final SearchLimits defaultLimits;
+    private final TranspositionTable transpositionTable;
+    private final double pawn;
+    private final int aspirationWindow;
+    private final double reverseFutilityMargin;
+    private final double futilityMargin;
+    private final double razoringMargin;
+    private final int lateMoves;
+
+    private Consumer<SearchResult> iterationListener = result -> {
+    };
+    private volatile boolean stopRequested;
+    private volatile boolean pondering;
+    private volatile TimeManager timeManager;
+    private boolean stopped;
+    private boolean stoppable;
+    private long nodes;
+    private long nextLimitCheck;
+    private long nodeLimit;
+    private int rootBestIndex;
+    private int[] lineMoves = new int[0];
+    private int[] lineScores = new int[0];
+    private int[][] linePvs = new int[0][];
+    private int lineCount;
+    private int lineDepth;
+
+    public AlphaBetaBoardService(Player player, BoardScoringService boardScoringService, int maxDepth) {
+        this(player, boardScoringService, SearchLimits.depth(maxDepth));
+    }
+
+    /**
+     * @param defaultLimits the limits {@link #findBestMove(ChessBoard)} searches with
+     */
+    public AlphaBetaBoardService(Player player, BoardScoringService boardScoringService, SearchLimits defaultLimits) {
+        this(player, boardScoringService, defaultLimits, new TranspositionTable(DEFAULT_HASH_MEGABYTES));
+    }
+
+    /**
+     * @param transpositionTable the table to store searched positions in, which other searches may share
+     */
+    public AlphaBetaBoardService(Player player, BoardScoringService boardScoringService, SearchLimits defaultLimits,
+                                 TranspositionTable transpositionTable) {
+        this(player, boardScoringService, defaultLimits, transpositionTable, PruningMargins.DEFAULT);
+    }
+
+    /**
+     * @param pruningMargins how boldly to prune close to the leaves
+     */
+    public AlphaBetaBoardService(Player player, BoardScoringService boardScoringService, SearchLimits defaultLimits,
+                                 TranspositionTable transpositionTable, PruningMargins pruningMargins) {
+        this.player = player;
+        this.quiescenceSearch = new QuiescenceSearch(boardScoringService);
+        int[] scores = new int[MoveGenerator.MAX_PLY * ZobristChessBoard.MAX_MOVES];
+        for (int ply = 0; ply < movePickers.length; ply++) {
+            movePickers[ply] = new MovePicker(moveOrdering, scores);
+        }
+        this.defaultLimits = defaultLimits;
+        this.transpositionTable = transpositionTable;
+        double pawn = boardScoringService.getPieceValue(Move.PAWN);
+        this.pawn = pawn;
+        this.aspirationWindow = Math.max(1, (int) Math.round(ASPIRATION_WINDOW_PAWNS * pawn));
+        this.reverseFutilityMargin = pruningMargins.reverseFutility() * pawn;
+        this.futilityMargin = pruningMargins.futility() * pawn;
+        this.razoringMargin = pruningMargins.razoring() * pawn;
+        this.lateMoves = pruningMargins.lateMoves();
+    }
+
+    @Override
+    public Optional<Move> findBestMove(ChessBoard chessBoard) {
+        return findBestMove(chessBoard, defaultLimits);
+    }
+
+    @Override
+    public Optional<Move> findBestMove(ChessBoard chessBoard, SearchLimits limits) {
+        int move = findBestPackedMove(chessBoard, limits);
+        return move == Move.NO_MOVE ? Optional.empty() : Optional.of(Move.toMove(chessBoard, move));
+    }
+
+    @Override
+    public int findBestPackedMove(ChessBoard chessBoard) {
+        return findBestPackedMove(chessBoard, defaultLimits);
+    }
+
+    @Override
+    public int findBestPackedMove(ChessBoard chessBoard, SearchLimits limits) {
+        return search(chessBoard, limits).move();
+    }
+
+    /**
+     * Asks a running search to stop, it returns the best move of its last completed iteration shortly after. Safe to
+     * call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Gets ready for a ponder search, a search of the position expected after the opponent's reply while the
+     * opponent is still thinking. Called on the thread that will decide on the hit, before {@link #ponder} is
+     * started on another, so a stop or hit that comes before the search gets going isn't lost.
+     */
+    void startPondering() {
+        stopRequested = false;
+        pondering = true;
+    }
+
+    /**
+     * Searches like {@link #search(ChessBoard, SearchLimits)}, except that the time and node limits don't apply until
+     * {@link #ponderHit}. Without one the search only ends at the depth limit or when told to stop.
+     */
+    SearchResult ponder(ChessBoard chessBoard, SearchLimits limits) {
+        transpositionTable.newSearch();
+        return search(chessBoard, limits, 0);
+    }
+
+    /**
+     * The opponent played the expected reply, the ponder search goes on as the normal search for it with the time
+     * budget of the limits, counted from now. Safe to call from any thread.
+     */
+    public void ponderHit(SearchLimits limits) {
+        timeManager = new TimeManager(limits, pawn, System.nanoTime());
+        pondering = false;
+    }
+
+    /**
+     * @param iterationListener told the result of every completed iteration of the main thread's search, on the
+     *                          searching thread
+     */
+    public void setIterationListener(Consumer<SearchResult> iterationListener) {
+        this.iterationListener = iterationListener;
+    }
+
+    /**
+     * Deepens the search until a limit is reached, see the class comment.
+     *
+     * @return the result of the last completed iteration.
+     */
+    public SearchResult search(ChessBoard chessBoard, SearchLimits limits) {
+        stopRequested = false;
+        pondering = false;
+        transpositionTable.newSearch();
+        return search(chessBoard, limits, 0);
+    }
+
+    /**
+     * Searches without starting a new search in the table, for one of several threads searching the same position.
+     *
+     * @param helper 0 for the main thread, otherwise the number of a helper thread. Helpers skip depths, see {@link
+     *               #SKIP_SIZE}, and stop as soon as they're asked to as nothing waits on their move.
+     */
+    SearchResult search(ChessBoard chessBoard, SearchLimits limits, int helper) {
+        long start = System.nanoTime();
+        deepen(chessBoard, limits, helper, 1, start);
+        return getResult(start);
+    }
+
+    /**
+     * @return the result of the last completed iteration, NO_MOVE and an empty line if there is none.
+     */
+    private SearchResult getResult(long start) {
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        if (lineCount == 0) {
+            return new SearchResult(Move.NO_MOVE, 0, 0, nodes, millis, new int[0]);
+        }
+        return new SearchResult(lineMoves[0], lineScores[0], lineDepth, nodes, millis, linePvs[0]);
+    }
+
+    /**
+     * Searches for the best few moves at once, for analysis. Every iteration searches the root once per line, each
+     * time leaving out the moves of the lines already found in it, so the second line is the best move besides the
+     * first and so on. The lines share the iterations and the transposition table, which makes this much cheaper
+     * than a search per line.
+     *
+     * @param lines how many lines are wanted, fewer come back when there are fewer legal moves
+     * @return the lines of the last completed iteration, best first.
+     */
+    public List<SearchLine> searchLines(ChessBoard chessBoard, SearchLimits limits, int lines) {
+        if (lines < 1) {
+            throw new IllegalStateException("At least one line has to be searched for, got " + lines);
+        }
+        stopRequested = false;
+        pondering = false;
+        transpositionTable.newSearch();
+        deepen(chessBoard, limits, 0, lines, System.nanoTime());
+
+        List<SearchLine> result = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            result.add(new SearchLine(linePvs[i], lineScores[i], lineDepth));
+        }
+        return result;
+    }
+
+    /**
+     * The iterative deepening, leaves the lines of the last completed iteration in {@link #lineMoves}, {@link
+     * #lineScores} and {@link #linePvs}.
+     */
+    private void deepen(ChessBoard chessBoard, SearchLimits limits, int helper, int lines, long start) {
+        if (!pondering) {
+            // a ponder hit may already have started the clock
+            timeManager = new TimeManager(limits, pawn, start);
+        }
+        nodeLimit = limits.nodes() == 0 ? Long.MAX_VALUE : limits.nodes();
+        int maxDepth = limits.depth() == 0 ? MoveGenerator.MAX_PLY - 1 : Math.min(limits.depth(), MoveGenerator.MAX_PLY - 1);
+        nodes = 0;
+        nextLimitCheck = LIMIT_CHECK_INTERVAL;
+        stopped = false;
+        stoppable = helper > 0;
+        moveOrdering.newSearch();
+
+        int[] moveStack = MoveGenerator.getMoveStack();
+        int count = chessBoard.generateMoves(player, moveStack, 0);
+        moveOrdering.order(moveStack, 0, count, Move.NO_MOVE, 0, player);
+        lines = Math.min(lines, count);
+        lineMoves = new int[lines];
+        lineScores = new int[lines];
+        linePvs = new int[lines][];
+        lineCount = 0;
+        lineDepth = 0;
+        int[] scores = new int[lines];
+        int[][] pvs = new int[lines][];
+        for (int depth = 1; depth <= maxDepth && lines > 0; depth++) {
+            if (helper > 0 && skipsDepth(helper, depth)) {
+                continue;
+            }
+            for (int line = 0; line < lines; line++) {
+                int score = searchLine(chessBoard, depth, line, moveStack, count);
+                if (stopped) {
+                    break;
+                }
+                // the line's move takes its slot, the moves after it keep their order and the next iteration
+                // searches the lines' moves first
+                int lineMove = moveStack[rootBestIndex];
+                System.arraycopy(moveStack, line, moveStack, line + 1, rootBestIndex - line);
+                moveStack[line] = lineMove;
+                scores[line] = score;
+                pvs[line] = Arrays.copyOf(pvTable[0], pvLength[0]);
+            }
+            if (stopped) {
+                break;
+            }
+
+            System.arraycopy(moveStack, 0, lineMoves, 0, lines);
+            System.arraycopy(scores, 0, lineScores, 0, lines);
+            for (int line = 0; line < lines; line++) {
+                linePvs[line] = getPrincipalVariation(chessBoard, pvs[line], depth);
+            }
+            lineCount = lines;
+            lineDepth = depth;
+            transpositionTable.store(chessBoard.getKey(), lineMoves[0], lineScores[0], depth,
+                    TranspositionTable.BOUND_EXACT, 0);
+            stoppable = true;
+            if (helper == 0) {
+                iterationListener.accept(getResult(start));
+            }
+
+            if (Arrays.stream(scores).allMatch(score -> Math.abs(score) >= MATE - MoveGenerator.MAX_PLY)) {
+                // forced mates either way, deeper iterations won't find anything better
+                break;
+            }
+            if (helper == 0 && !pondering
+                    && !timeManager.startsNextIteration(lineMoves[0], lineScores[0], System.nanoTime())) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Searches the root moves from the line's slot on, with an aspiration window around the line's score in the
+     * last iteration.
+     *
+     * @return the score of the best of those moves, whose index is left in {@link #rootBestIndex}.
+     */
+    private int searchLine(ChessBoard chessBoard, int depth, int line, int[] moveStack, int count) {
+        int window = aspirationWindow;
+        int alpha = -INFINITY;
+        int beta = INFINITY;
+        if (depth >= ASPIRATION_MIN_DEPTH && line < lineCount
+                && Math.abs(lineScores[line]) < MATE - MoveGenerator.MAX_PLY) {
+            alpha = lineScores[line] - window;
+            beta = lineScores[line] + window;
+        }
+        while (true) {
+            int score = searchRoot(chessBoard, depth, alpha, beta, moveStack, line, count);
+            if (stopped) {
+                return score;
+            }
+            // outside the window the score is only a bound, search again with the window widened that way
+            if (score <= alpha && alpha > -INFINITY) {
+                alpha = Math.max(-INFINITY, alpha - window);
+            } else if (score >= beta && beta < INFINITY) {
+                beta = Math.min(INFINITY, beta + window);
+            } else {
+                return score;
+            }
+            window *= 2;
+        }
+    }
+
+    /**
+     * Searches the root moves from the first index on in their order, the first with the full window and the others
+     * with a zero window around alpha, only searched again with the full window if they beat it. Sets {@link
+     * #rootBestIndex} and leaves the best move's line in the table's first row.
+     *
+     * @return the best score, fail-soft like the other nodes.
+     */
+    private int searchRoot(ChessBoard chessBoard, int depth, int alpha, int beta, int[] moveStack, int first,
+                           int count) {
+        rootBestIndex = -1;
+        pvLength[0] = 0;
+        int bestScore = -INFINITY;
+        for (int i = first; i < count; i++) {
+            if (!chessBoard.makeMove(moveStack[i])) {
+                continue;
+            }
+            int score;
+            if (rootBestIndex == -1) {
+                score = -search(chessBoard, opponent(player), depth - 1, -beta, -alpha, 1, moveStack, count, true);
+            } else {
+                score = -search(chessBoard, opponent(player), depth - 1, -alpha - 1, -alpha, 1, moveStack, count, true);
+                if (score > alpha && score < beta && !stopped) {
+                    score = -search(chessBoard, opponent(player), depth - 1, -beta, -alpha, 1, moveStack, count, true);
+                }
+            }
+            chessBoard.rollbackToPreviousMove(false);
+            if (stopped) {
+                break;
+            }
+            if (score > bestScore || rootBestIndex == -1) {
+                bestScore = score;
+                rootBestIndex = i;
+                updatePrincipalVariation(0, moveStack[i]);
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Puts the move in front of the line the child node left one row down, as the line of the node at the ply.
+     */
+    private void updatePrincipalVariation(int ply, int move) {
+        int childLength = pvLength[ply + 1];
+        pvTable[ply][0] = move;
+        System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, childLength);
+        pvLength[ply] = childLength + 1;
+    }
+
+    /**
+     * Plays out the line the search left and follows the transposition table's moves on from its end, for lines a
+     * table hit cut short.
+     *
+     * @return the line and the moves stored for the positions after it, as long as they're legal and no longer than
+     * the depth.
+     */
+    private int[] getPrincipalVariation(ChessBoard chessBoard, int[] line, int depth) {
+        int[] moves = new int[Math.max(depth, line.length)];
+        int length = 0;
+        Player toMove = player;
+        int move = line[0];
+        while (length < moves.length && chessBoard.makeMove(move)) {
+            moves[length++] = move;
+            toMove = opponent(toMove);
+            if (length < line.length) {
+                move = line[length];
+                continue;
+            }
+            long entry = transpositionTable.probe(chessBoard.getKey());
+            move = TranspositionTable.getMove(entry);
+            if (entry == 0L || move == Move.NO_MOVE || chessBoard.isRepetition() || !chessBoard.isLegal(toMove, move)) {
+                break;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            chessBoard.rollbackToPreviousMove(false);
+        }
+        return Arrays.copyOf(moves, length);
+    }
+
+    /**
+     * @param toMove the player whose move it is at this node
+     * @param ply    how far this node is from the root
+     * @param offset the first free index of the move stack, this node's moves go from there
+     * @param nullMoveAllowed false right after a null move, two in a row would only search the same position
+     *                        shallower
+     * @return the score of the node for the player to move, fail-soft: below alpha it's an upper bound, from beta
+     * on a lower bound.
+     */
+    private int search(ChessBoard chessBoard, Player toMove, int depth, int alpha, int beta, int ply,
+                       int[] moveStack, int offset, boolean nullMoveAllowed) {
+        // the quiescence search adds its nodes in bulk, so the count can jump past a multiple of the interval
+        if (++nodes >= nextLimitCheck) {
+            nextLimitCheck = nodes + LIMIT_CHECK_INTERVAL;
+            checkLimits();
+        }
+        pvLength[ply] = 0;
+        if (stopped) {
+            return 0;
+        }
+        if (chessBoard.getHalfMoveClock() >= FIFTY_MOVE_PLIES || chessBoard.isRepetition()) {
+            // a cycle is a draw at once, searching it again only leads round it
+            return 0;
+        }
+        if (ply >= MoveGenerator.MAX_PLY) {
+            return quiescenceSearch.evaluate(chessBoard, toMove);
+        }
+        if (depth <= 0) {
+            int score = quiescenceSearch.search(chessBoard, toMove, alpha, beta, ply, moveStack, offset);
+            nodes += quiescenceSearch.takeNodes();
+            return score;
+        }
+
+        long key = chessBoard.getKey();
+        long entry = transpositionTable.probe(key);
+        int hashMove = Move.NO_MOVE;
+        if (entry != 0L) {
+            hashMove = TranspositionTable.getMove(entry);
+            if (TranspositionTable.getDepth(entry) >= depth) {
+                int hashScore = TranspositionTable.getScore(entry, ply);
+                int bound = TranspositionTable.getBound(entry);
+                if (bound == TranspositionTable.BOUND_EXACT
+                        || (bound == TranspositionTable.BOUND_LOWER && hashScore >= beta)
+                        || (bound == TranspositionTable.BOUND_UPPER && hashScore <= alpha)) {
+                    return hashScore;
+                }
+            }
+        }
+
+        boolean inCheck = chessBoard.isInCheck(toMove);
+        boolean pvNode = beta - alpha > 1;
+        // mate scores are exact wherever they come from, there is no margin to prune within
+        boolean prunable = !pvNode && !inCheck && Math.abs(beta) < MATE - MoveGenerator.MAX_PLY;
+        int staticEval = inCheck ? -INFINITY : quiescenceSearch.evaluate(chessBoard, toMove);
+
+        if (prunable && depth <= REVERSE_FUTILITY_MAX_DEPTH && staticEval - reverseFutilityMargin * depth >= beta) {
+            // so far above beta that no move of ours will bring it back down
+            return staticEval;
+        }
+        if (prunable && depth <= RAZORING_MAX_DEPTH && staticEval + razoringMargin * depth < alpha) {
+            // so far below alpha that only a capture could help, see if one does
+            int score = quiescenceSearch.search(chessBoard, toMove, alpha, beta, ply, moveStack, offset);
+            nodes += quiescenceSearch.takeNodes();
+            if (score <= alpha) {
+                return score;
+            }
+        }
+        boolean futile = prunable && depth <= FUTILITY_MAX_DEPTH && staticEval + futilityMargin * depth <= alpha;
+
+        if (nullMoveAllowed && !pvNode && depth >= NULL_MOVE_MIN_DEPTH && !inCheck && beta < MATE - MoveGenerator.MAX_PLY
+                && chessBoard.getPieceMaterial(toMove) > 0 && staticEval >= beta) {
+            int reduction = 2 + depth / 4;
+            chessBoard.makeNullMove();
+            int score = -search(chessBoard, opponent(toMove), depth - 1 - reduction, -beta, -beta + 1, ply + 1,
+                    moveStack, offset, false);
+            chessBoard.rollbackToPreviousMove(false);
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                // a mate found after passing doesn't prove one after moving
+                score = score >= MATE - MoveGenerator.MAX_PLY ? beta : score;
+                transpositionTable.store(key, Move.NO_MOVE, score, depth, TranspositionTable.BOUND_LOWER, ply);
+                return score;
+            }
+        }
+
+        var movePicker = movePickers[ply];
+        movePicker.reset(chessBoard, toMove, hashMove, ply, moveStack, offset);
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Move.NO_MOVE;
+        int movesSearched = 0;
+        int quietMovesSearched = 0;
+        int move;
+        while ((move = movePicker.next()) != Move.NO_MOVE) {
+            if (!chessBoard.makeMove(move)) {
+                continue;
+            }
+            boolean quiet = !Move.isTactical(move);
+            boolean givesCheck = quiet && chessBoard.isInCheck(opponent(toMove));
+            boolean late = prunable && depth <= LATE_MOVE_PRUNING_MAX_DEPTH
+                    && quietMovesSearched - depth * depth >= lateMoves;
+            if (quiet && !givesCheck && movesSearched > 0 && (futile || late)) {
+                // a quiet move won't lift a score this far below alpha, and late in the order quiet moves hardly
+                // ever cut off, checks might do either
+                chessBoard.rollbackToPreviousMove(false);
+                continue;
+            }
+            movesSearched++;
+            if (quiet) {
+                quietMovesSearched++;
+            }
+            int score;
+            int childOffset = movePicker.getEnd();
+            if (movesSearched == 1) {
+                score = -search(chessBoard, opponent(toMove), depth - 1, -beta, -alpha, ply + 1, moveStack,
+                        childOffset, true);
+            } else {
+                // prove the move no better than alpha with a zero window, reduced if it's late, see the class comment
+                int reduction = getReduction(move, depth, movesSearched, inCheck, givesCheck, ply);
+                score = -search(chessBoard, opponent(toMove), depth - 1 - reduction, -alpha - 1, -alpha, ply + 1,
+                        moveStack, childOffset, true);
+                if (score > alpha && reduction > 0 && !stopped) {
+                    score = -search(chessBoard, opponent(toMove), depth - 1, -alpha - 1, -alpha, ply + 1, moveStack,
+                            childOffset, true);
+                }
+                if (score > alpha && score < beta && !stopped) {
+                    score = -search(chessBoard, opponent(toMove), depth - 1, -beta, -alpha, ply + 1, moveStack,
+                            childOffset, true);
+                }
+            }
+            chessBoard.rollbackToPreviousMove(false);
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    bestMove = move;
+                    alpha = score;
+                    updatePrincipalVariation(ply, move);
+                    if (score >= beta) {
+                        // the opponent already has a better line than letting us play this
+                        moveOrdering.recordCutoff(move, ply, depth, toMove);
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (movesSearched == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        int bound = bestScore >= beta
+                ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+        transpositionTable.store(key, bestMove, bestScore, depth, bound, ply);
+        return bestScore;
+    }
+
+    /**
+     * @return how many plies less than the full depth the move is searched with, 0 for moves that might matter: the
+     * first few, tactical moves, killers, check evasions and checks.
+     */
+    private int getReduction(int move, int depth, int moveNumber, boolean inCheck, boolean givesCheck, int ply) {
+        if (depth < LATE_MOVE_MIN_DEPTH || moveNumber < LATE_MOVE_NUMBER || inCheck || givesCheck
+                || Move.isTactical(move) || move == moveOrdering.getKiller(ply, 0)
+                || move == moveOrdering.getKiller(ply, 1)) {
+            return 0;
+        }
+        int reduction = REDUCTIONS[Math.min(depth, REDUCTIONS.length - 1)][Math.min(moveNumber, REDUCTIONS.length - 1)];
+        // at least one ply is left to search
+        return Math.min(reduction, depth - 2);
+    }
+
+    private static boolean skipsDepth(int helper, int depth) {
+        int i = (helper - 1) % SKIP_SIZE.length;
+        return ((depth + SKIP_PHASE[i]) / SKIP_SIZE[i]) % 2 != 0;
+    }
+
+    private void checkLimits() {
+        if (stoppable && (stopRequested || !pondering && (nodes >= nodeLimit || System.nanoTime() >= timeManager.getDeadline()))) {
+            stopped = true;
+        }
+    }
+
+    static Player opponent(Player player) {
+        return switch (player) {
+            case white -> Player.black;
+            case black -> Player.white;
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package com.foster.search;
+
+import com.foster.BestMoveService;
+import com.foster.BoardScoringService;
+import com.foster.ChessBoard;
+import com.foster.Player;
+import com.foster.SearchLimits;
+import com.foster.board.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches on several threads at once, all running the same {@link AlphaBetaBoardService} search on their own copy
+ * of the board and sharing one {@link TranspositionTable}. The threads don't talk to each other otherwise, they speed
+ * each other up through the table: a helper that got to a position first leaves its score and best move behind for
+ * the others. Helpers skip some depths so they aren't all searching the same tree in the same order.
+ * <p>
+ * The calling thread is the main thread, its limits decide when the search ends and the helpers are stopped then.
+ * The move played is the one of whichever thread completed the deepest iteration, the main thread's on a tie. The
+ * node limit applies to the main thread's nodes.
+ */
+public class LazySmpBoardService implements BestMoveService {
+    private static final int DEFAULT_HASH_MEGABYTES = 64;
+
+    private final Player player;
+    private final BoardScoringService boardScoringService;
+    private final SearchLimits defaultLimits;
+    private final TranspositionTable transpositionTable;
+    private final int threads;
+    private final ExecutorService helperPool;
+
+    private volatile AlphaBetaBoardService[] searches = new AlphaBetaBoardService[0];
+    private volatile boolean stopRequested;
+
+    public LazySmpBoardService(Player player, BoardScoringService boardScoringService, SearchLimits defaultLimits,
+                               int threads) {
+        this(player, boardScoringService, defaultLimits, threads, new TranspositionTable(DEFAULT_HASH_MEGABYTES));
+    }
+
+    /**
+     * @param threads the number of threads to search on, the calling thread included
+     */
+    public LazySmpBoardService(Player player, BoardScoringService boardScoringService, SearchLimits defaultLimits,
+                               int threads, TranspositionTable transpositionTable) {
+        if (threads < 1) {
+            throw new IllegalStateException("At least one thread is needed to search, got " + threads);
+        }
+        this.player = player;
+        this.boardScoringService = boardScoringService;
+        this.defaultLimits = defaultLimits;
+        this.threads = threads;
+        this.transpositionTable = transpositionTable;
+        this.helperPool = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            var thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Optional<Move> findBestMove(ChessBoard chessBoard) {
+        return findBestMove(chessBoard, defaultLimits);
+    }
+
+    @Override
+    public Optional<Move> findBestMove(ChessBoard chessBoard, SearchLimits limits) {
+        int move = findBestPackedMove(chessBoard, limits);
+        return move == Move.NO_MOVE ? Optional.empty() : Optional.of(Move.toMove(chessBoard, move));
+    }
+
+    @Override
+    public int findBestPackedMove(ChessBoard chessBoard) {
+        return findBestPackedMove(chessBoard, defaultLimits);
+    }
+
+    @Override
+    public int findBestPackedMove(ChessBoard chessBoard, SearchLimits limits) {
+        return search(chessBoard, limits).move();
+    }
+
+    /**
+     * Asks a running search to stop, see {@link AlphaBetaBoardService#stop()}. Safe to call from any thread.
+     */
+    public void stop() {
+        stopRequested = true;
+        for (var search : searches) {
+            search.stop();
+        }
+    }
+
+    /**
+     * Searches on all threads until the main thread reaches a limit, see the class comment.
+     *
+     * @return the deepest result, with the nodes of all threads added up.
+     */
+    public SearchResult search(ChessBoard chessBoard, SearchLimits limits) {
+        stopRequested = false;
+        transpositionTable.newSearch();
+        var current = new AlphaBetaBoardService[threads];
+        for (int i = 0; i < threads; i++) {
+            current[i] = new AlphaBetaBoardService(player, boardScoringService, limits, transpositionTable);
+        }
+        searches = current;
+
+        List<Future<SearchResult>> helpers = new ArrayList<>(threads - 1);
+        for (int i = 1; i < threads; i++) {
+            int helper = i;
+            var board = chessBoard.copy();
+            helpers.add(helperPool.submit(() -> current[helper].search(board, limits, helper)));
+        }
+        if (stopRequested) {
+            // a stop that came before the searches were published
+            stop();
+        }
+
+        var best = current[0].search(chessBoard, limits, 0);
+        long nodes = best.nodes();
+        for (int i = 1; i < threads; i++) {
+            current[i].stop();
+        }
+        for (var future : helpers) {
+            var result = join(future);
+            nodes += result.nodes();
+            if (result.depth() > best.depth()) {
+                best = result;
+            }
+        }
+        return new SearchResult(best.move(), best.score(), best.depth(), nodes, best.millis(), best.pv());
+    }
+
+    private static SearchResult join(Future<SearchResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for a helper search", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A helper search failed", e.getCause());
+        }
+    }
+}
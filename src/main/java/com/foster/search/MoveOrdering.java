@@ -0,0 +1,141 @@
+package com.foster.search;
+
+import com.foster.Player;
+import com.foster.board.Move;
+import com.foster.board.zobrist.MoveGenerator;
+import com.foster.board.zobrist.ZobristChessBoard;
+
+import java.util.Arrays;
+
+/**
+ * Puts the moves of a node in the order most likely to cut it off early, which is what makes alpha-beta prune:
+ * <ol>
+ * <li>the move the transposition table has for the position,</li>
+ * <li>captures and promotions, the most valuable victim first and among those the least valuable attacker first,
+ * MVV-LVA,</li>
+ * <li>the two killer moves of the ply, the last quiet moves to cut off a node this far from the root,</li>
+ * <li>the other quiet moves, by how often they cut off nodes before, the butterfly history, indexed by side, from and
+ * to square.</li>
+ * </ol>
+ * The killers and the history are learned during the search through {@link #recordCutoff}, so an instance belongs to
+ * one search thread.
+ */
+public class MoveOrdering {
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 27;
+
+    /**
+     * History scores are halved once one gets this high, so they stay below the killers and old cutoffs fade.
+     */
+    private static final int HISTORY_LIMIT = 1 << 20;
+
+    private static final int[] VICTIM_VALUES = {1, 3, 3, 5, 9, 0};
+
+    private final int[][] killers = new int[MoveGenerator.MAX_PLY][2];
+    private final int[][][] history = new int[2][64][64];
+    private final int[] scores = new int[MoveGenerator.MAX_PLY * ZobristChessBoard.MAX_MOVES];
+
+    /**
+     * Forgets the killers, they belong to the positions of the last search, and halves the history.
+     */
+    public void newSearch() {
+        for (int[] plyKillers : killers) {
+            Arrays.fill(plyKillers, Move.NO_MOVE);
+        }
+        ageHistory();
+    }
+
+    /**
+     * Sorts the slice of the move stack, best first.
+     *
+     * @param hashMove the transposition table's move for the position, NO_MOVE if there is none
+     */
+    public void order(int[] moves, int start, int end, int hashMove, int ply, Player toMove) {
+        for (int i = start; i < end; i++) {
+            scores[i] = score(moves[i], hashMove, ply, toMove);
+        }
+        // insertion sort, the slices are short and often close to sorted already
+        for (int i = start + 1; i < end; i++) {
+            int move = moves[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= start && scores[j] < score) {
+                moves[j + 1] = moves[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            moves[j + 1] = move;
+            scores[j + 1] = score;
+        }
+    }
+
+    /**
+     * Learns from a move that cut a node off, quiet moves become the ply's first killer and gain history.
+     */
+    public void recordCutoff(int move, int ply, int depth, Player toMove) {
+        if (Move.isTactical(move)) {
+            return;
+        }
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != move) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = move;
+        }
+
+        int[] fromHistory = history[toMove.ordinal()][Move.getFrom(move)];
+        fromHistory[Move.getTo(move)] += depth * depth;
+        if (fromHistory[Move.getTo(move)] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    /**
+     * @return the killer moves of the ply, the most recent first, NO_MOVE where there is none yet.
+     */
+    public int getKiller(int ply, int index) {
+        return killers[ply][index];
+    }
+
+    public int getHistory(int move, Player toMove) {
+        return history[toMove.ordinal()][Move.getFrom(move)][Move.getTo(move)];
+    }
+
+    /**
+     * @return the MVV-LVA score of a capture or promotion, higher for more valuable victims and, among those,
+     * cheaper attackers.
+     */
+    public static int mvvLva(int move) {
+        int victim = Move.isCapture(move) ? VICTIM_VALUES[Move.getCapturedPieceType(move)] : 0;
+        if (Move.getFlag(move) == Move.FLAG_PROMOTE_QUEEN) {
+            victim += VICTIM_VALUES[Move.QUEEN];
+        }
+        return victim * 8 + (Move.KING - Move.getPieceType(move));
+    }
+
+    private int score(int move, int hashMove, int ply, Player toMove) {
+        if (move == hashMove) {
+            return HASH_MOVE_SCORE;
+        }
+        if (Move.isTactical(move)) {
+            return CAPTURE_SCORE + mvvLva(move);
+        }
+        if (move == killers[ply][0]) {
+            return KILLER_SCORE + 1;
+        }
+        if (move == killers[ply][1]) {
+            return KILLER_SCORE;
+        }
+        return getHistory(move, toMove);
+    }
+
+    private void ageHistory() {
+        for (int[][] sideHistory : history) {
+            for (int[] fromHistory : sideHistory) {
+                for (int to = 0; to < fromHistory.length; to++) {
+                    fromHistory[to] >>= 1;
+                }
+            }
+        }
+    }
+}
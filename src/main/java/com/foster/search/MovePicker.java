@@ -0,0 +1,169 @@
+package com.foster.search;
+
+import com.foster.ChessBoard;
+import com.foster.Player;
+import com.foster.board.Move;
+
+/**
+ * Hands out the moves of one node in the order of {@link MoveOrdering}, generating them a stage at a time so a node
+ * cut off early never pays for the rest:
+ * <ol>
+ * <li>the hash move, checked with {@link ChessBoard#isLegal} rather than generated,</li>
+ * <li>the captures and promotions, generated now and handed out by MVV-LVA,</li>
+ * <li>the killers, checked like the hash move,</li>
+ * <li>the quiet moves, only generated once everything before has been searched, by history.</li>
+ * </ol>
+ * The best remaining move of a stage is picked on every call rather than sorting the stage up front, most cut nodes
+ * cut off on one of the first moves. Moves handed out in an earlier stage are skipped in the later ones.
+ * <p>
+ * A picker is reused for every node at its ply, see {@link #reset}.
+ */
+public class MovePicker {
+    private static final int HASH_MOVE = 0;
+    private static final int GENERATE_TACTICAL = 1;
+    private static final int TACTICAL = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int GENERATE_QUIET = 5;
+    private static final int QUIET = 6;
+    private static final int DONE = 7;
+
+    private final MoveOrdering moveOrdering;
+    private final int[] scores;
+
+    private ChessBoard chessBoard;
+    private Player toMove;
+    private int hashMove;
+    private int ply;
+    private int[] moveStack;
+
+    private int stage;
+    private int next;
+    private int end;
+    private int firstKiller;
+    private int secondKiller;
+
+    /**
+     * @param scores scratch room for the move scores, as long as the move stack and shared by the pickers of one
+     *               search thread
+     */
+    public MovePicker(MoveOrdering moveOrdering, int[] scores) {
+        this.moveOrdering = moveOrdering;
+        this.scores = scores;
+    }
+
+    /**
+     * Starts on a new node.
+     *
+     * @param hashMove the transposition table's move for the position, NO_MOVE if there is none
+     * @param offset   the first free index of the move stack, the generated moves go from there
+     */
+    public void reset(ChessBoard chessBoard, Player toMove, int hashMove, int ply, int[] moveStack, int offset) {
+        this.chessBoard = chessBoard;
+        this.toMove = toMove;
+        this.hashMove = hashMove;
+        this.ply = ply;
+        this.moveStack = moveStack;
+        this.stage = HASH_MOVE;
+        this.next = offset;
+        this.end = offset;
+        this.firstKiller = Move.NO_MOVE;
+        this.secondKiller = Move.NO_MOVE;
+    }
+
+    /**
+     * @return the end of the moves generated so far, the first free index of the move stack for the next ply.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the next move to search, NO_MOVE when there are none left.
+     */
+    public int next() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE -> {
+                    stage = GENERATE_TACTICAL;
+                    if (hashMove != Move.NO_MOVE && chessBoard.isLegal(toMove, hashMove)) {
+                        return hashMove;
+                    }
+                }
+                case GENERATE_TACTICAL -> {
+                    end += chessBoard.generateMoves(toMove, moveStack, end, ChessBoard.TACTICAL_MOVES);
+                    for (int i = next; i < end; i++) {
+                        scores[i] = MoveOrdering.mvvLva(moveStack[i]);
+                    }
+                    stage = TACTICAL;
+                }
+                case TACTICAL -> {
+                    int move = pickBest();
+                    if (move == Move.NO_MOVE) {
+                        stage = FIRST_KILLER;
+                    } else if (move != hashMove) {
+                        return move;
+                    }
+                }
+                case FIRST_KILLER -> {
+                    stage = SECOND_KILLER;
+                    firstKiller = moveOrdering.getKiller(ply, 0);
+                    if (isPlayableKiller(firstKiller)) {
+                        return firstKiller;
+                    }
+                }
+                case SECOND_KILLER -> {
+                    stage = GENERATE_QUIET;
+                    secondKiller = moveOrdering.getKiller(ply, 1);
+                    if (isPlayableKiller(secondKiller)) {
+                        return secondKiller;
+                    }
+                }
+                case GENERATE_QUIET -> {
+                    end += chessBoard.generateMoves(toMove, moveStack, end, ChessBoard.QUIET_MOVES);
+                    for (int i = next; i < end; i++) {
+                        scores[i] = moveOrdering.getHistory(moveStack[i], toMove);
+                    }
+                    stage = QUIET;
+                }
+                case QUIET -> {
+                    int move = pickBest();
+                    if (move == Move.NO_MOVE) {
+                        stage = DONE;
+                    } else if (move != hashMove && move != firstKiller && move != secondKiller) {
+                        return move;
+                    }
+                }
+                default -> {
+                    return Move.NO_MOVE;
+                }
+            }
+        }
+    }
+
+    private boolean isPlayableKiller(int killer) {
+        return killer != Move.NO_MOVE && killer != hashMove && !Move.isTactical(killer)
+                && chessBoard.isLegal(toMove, killer);
+    }
+
+    /**
+     * Swaps the best scored of the remaining moves of the stage to the front of them and hands it out.
+     */
+    private int pickBest() {
+        if (next == end) {
+            return Move.NO_MOVE;
+        }
+        int best = next;
+        for (int i = next + 1; i < end; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = moveStack[best];
+        moveStack[best] = moveStack[next];
+        scores[best] = scores[next];
+        moveStack[next] = move;
+        next++;
+        return move;
+    }
+}
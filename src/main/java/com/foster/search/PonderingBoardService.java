@@ -0,0 +1,144 @@
+package com.foster.search;
+
+import com.foster.BestMoveService;
+import com.foster.BoardScoringService;
+import com.foster.ChessBoard;
+import com.foster.Player;
+import com.foster.SearchLimits;
+import com.foster.board.Move;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Thinks on the opponent's time. Once it has found a move, it plays the move and the reply its principal variation
+ * expects on a copy of the board and goes on searching from there in the background, the ponder search, while the
+ * opponent thinks. When it's asked for a move again:
+ * <ul>
+ * <li>on a ponder hit, the opponent played the expected reply, the ponder search goes on as the search for the move,
+ * its clock starting then, with the iterations it already completed to build on,</li>
+ * <li>on a ponder miss the ponder search is stopped and a new search started. The transposition table and the history
+ * keep what the ponder search found, positions of the expected line often come up in the real one too.</li>
+ * </ul>
+ * The searches run on one {@link AlphaBetaBoardService}, so its tables are warm for every move of the game.
+ */
+public class PonderingBoardService implements BestMoveService {
+    private static final int DEFAULT_HASH_MEGABYTES = 64;
+
+    private final AlphaBetaBoardService search;
+    private final SearchLimits defaultLimits;
+    private final ExecutorService ponderThread;
+
+    private Future<SearchResult> ponderSearch;
+    private long ponderKey;
+    private int ponderMove = Move.NO_MOVE;
+
+    public PonderingBoardService(Player player, BoardScoringService boardScoringService, SearchLimits defaultLimits) {
+        this(player, boardScoringService, defaultLimits, new TranspositionTable(DEFAULT_HASH_MEGABYTES));
+    }
+
+    public PonderingBoardService(Player player, BoardScoringService boardScoringService, SearchLimits defaultLimits,
+                                 TranspositionTable transpositionTable) {
+        this.search = new AlphaBetaBoardService(player, boardScoringService, defaultLimits, transpositionTable);
+        this.defaultLimits = defaultLimits;
+        this.ponderThread = Executors.newSingleThreadExecutor(runnable -> {
+            var thread = new Thread(runnable, "ponder");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Optional<Move> findBestMove(ChessBoard chessBoard) {
+        return findBestMove(chessBoard, defaultLimits);
+    }
+
+    @Override
+    public Optional<Move> findBestMove(ChessBoard chessBoard, SearchLimits limits) {
+        int move = findBestPackedMove(chessBoard, limits);
+        return move == Move.NO_MOVE ? Optional.empty() : Optional.of(Move.toMove(chessBoard, move));
+    }
+
+    @Override
+    public int findBestPackedMove(ChessBoard chessBoard) {
+        return findBestPackedMove(chessBoard, defaultLimits);
+    }
+
+    /**
+     * Finds the move, from the ponder search on a hit, and starts pondering on the reply it expects. The board is
+     * left as it was, the move isn't played.
+     */
+    @Override
+    public int findBestPackedMove(ChessBoard chessBoard, SearchLimits limits) {
+        var result = search(chessBoard, limits);
+        if (result.move() != Move.NO_MOVE) {
+            startPondering(chessBoard, result, limits);
+        }
+        return result.move();
+    }
+
+    /**
+     * Searches the position, taking over the ponder search if it was pondering on it, see the class comment.
+     */
+    public SearchResult search(ChessBoard chessBoard, SearchLimits limits) {
+        if (ponderSearch != null && ponderKey == chessBoard.getKey()) {
+            search.ponderHit(limits);
+            return takePonderResult();
+        }
+        stopPondering();
+        return search.search(chessBoard, limits);
+    }
+
+    /**
+     * @return the reply the ponder search expects, NO_MOVE when it isn't pondering.
+     */
+    public int getPonderMove() {
+        return ponderSearch == null ? Move.NO_MOVE : ponderMove;
+    }
+
+    /**
+     * Stops the ponder search and waits for it, the game may have ended. Nothing happens if it isn't pondering.
+     */
+    public void stopPondering() {
+        if (ponderSearch == null) {
+            return;
+        }
+        search.stop();
+        takePonderResult();
+    }
+
+    /**
+     * Plays the result's move and the reply after it on a copy of the board and searches there in the background.
+     * Without a reply in the principal variation there is nothing to ponder on.
+     */
+    private void startPondering(ChessBoard chessBoard, SearchResult result, SearchLimits limits) {
+        int[] pv = result.pv();
+        if (pv.length < 2) {
+            return;
+        }
+        var board = chessBoard.copy();
+        if (!board.makeMove(pv[0]) || !board.makeMove(pv[1])) {
+            return;
+        }
+        ponderKey = board.getKey();
+        ponderMove = pv[1];
+        search.startPondering();
+        ponderSearch = ponderThread.submit(() -> search.ponder(board, limits));
+    }
+
+    private SearchResult takePonderResult() {
+        var future = ponderSearch;
+        ponderSearch = null;
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the ponder search", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The ponder search failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.foster.search;
+
+/**
+ * How boldly {@link AlphaBetaBoardService} prunes nodes close to the leaves without searching them, going by the
+ * board score of the position. The margins are in pawns per ply of depth left, so a node two plies from the leaves
+ * gets twice the margin. Larger margins prune less.
+ *
+ * @param reverseFutility how far above beta the score has to be for the node to be cut off, its moves wouldn't take
+ *                        the score back down that far
+ * @param futility        how far below alpha the score has to be for the quiet moves to be skipped, they wouldn't
+ *                        bring it up that far
+ * @param razoring        how far below alpha the score has to be for only the captures to be searched, as in the
+ *                        quiescence search
+ * @param lateMoves       how many quiet moves are searched at depth 1 before the rest are skipped, the depth squared
+ *                        is added for deeper nodes
+ */
+public record PruningMargins(double reverseFutility, double futility, double razoring, int lateMoves) {
+    public static final PruningMargins DEFAULT = new PruningMargins(1.5, 2.0, 4.0, 3);
+
+    /**
+     * Margins no score ever meets, the search prunes nothing this way.
+     */
+    public static final PruningMargins OFF = new PruningMargins(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+            Double.POSITIVE_INFINITY, Integer.MAX_VALUE);
+}
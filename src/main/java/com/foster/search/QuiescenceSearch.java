@@ -0,0 +1,147 @@
+package com.foster.search;
+
+import com.foster.BoardScoringService;
+import com.foster.ChessBoard;
+import com.foster.Player;
+import com.foster.board.Move;
+import com.foster.board.zobrist.MoveGenerator;
+
+/**
+ * Plays out the captures at the leaves of a search, so a position isn't scored halfway through an exchange with a
+ * piece hanging. Only captures and promotions are searched, and the side to move may always stand pat instead: take
+ * the board score as it is if no capture improves on it. In check there is no standing pat, every evasion is searched
+ * and having none is mate.
+ * <p>
+ * Captures that can't matter are skipped without being played. A capture that loses material once the exchange on
+ * its square is played out, going by {@link ChessBoard#see(int)}, is skipped, and so is one that can't bring the
+ * score up to alpha even with the captured piece and a margin for positional gains added to the standing score,
+ * the delta pruning.
+ * <p>
+ * Keeps its own node count, so a search on another thread needs its own instance.
+ */
+public class QuiescenceSearch {
+    /**
+     * The margin delta pruning allows for, in pawns.
+     */
+    private static final int DEFAULT_DELTA_MARGIN_PAWNS = 2;
+
+    /**
+     * Evaluations are clamped below this so they can't be mistaken for a mate.
+     */
+    private static final int MAX_EVALUATION = AlphaBetaBoardService.MATE - MoveGenerator.MAX_PLY - 1;
+
+    private final BoardScoringService boardScoringService;
+    private final double deltaMargin;
+    private long nodes;
+
+    public QuiescenceSearch(BoardScoringService boardScoringService) {
+        this(boardScoringService, DEFAULT_DELTA_MARGIN_PAWNS * boardScoringService.getPieceValue(Move.PAWN));
+    }
+
+    /**
+     * @param deltaMargin what a capture may gain besides the captured piece, in the units of the board score
+     */
+    public QuiescenceSearch(BoardScoringService boardScoringService, double deltaMargin) {
+        this.boardScoringService = boardScoringService;
+        this.deltaMargin = deltaMargin;
+    }
+
+    /**
+     * Searches the captures with a full window.
+     *
+     * @return the score of the position for the player to move.
+     */
+    public int search(ChessBoard chessBoard, Player toMove, int[] moveStack, int offset) {
+        return search(chessBoard, toMove, -AlphaBetaBoardService.INFINITY, AlphaBetaBoardService.INFINITY, 0,
+                moveStack, offset);
+    }
+
+    /**
+     * @param ply    how far this node is from the root of the whole search
+     * @param offset the first free index of the move stack, this node's moves go from there
+     * @return the score of the node for the player to move, fail-soft like {@link AlphaBetaBoardService}.
+     */
+    int search(ChessBoard chessBoard, Player toMove, int alpha, int beta, int ply, int[] moveStack, int offset) {
+        if (ply >= MoveGenerator.MAX_PLY) {
+            return evaluate(chessBoard, toMove);
+        }
+
+        boolean inCheck = chessBoard.isInCheck(toMove);
+        int standPat = 0;
+        int bestScore = -AlphaBetaBoardService.INFINITY;
+        if (!inCheck) {
+            standPat = evaluate(chessBoard, toMove);
+            if (standPat >= beta) {
+                return standPat;
+            }
+            alpha = Math.max(alpha, standPat);
+            bestScore = standPat;
+        }
+
+        int kind = inCheck ? ChessBoard.ALL_MOVES : ChessBoard.TACTICAL_MOVES;
+        int end = offset + chessBoard.generateMoves(toMove, moveStack, offset, kind);
+        boolean anyMove = false;
+        for (int i = offset; i < end; i++) {
+            int move = moveStack[i];
+            if (!inCheck && isFutile(chessBoard, move, standPat, alpha)) {
+                continue;
+            }
+            if (!chessBoard.makeMove(move)) {
+                continue;
+            }
+            nodes++;
+            anyMove = true;
+            int score = -search(chessBoard, AlphaBetaBoardService.opponent(toMove), -beta, -alpha, ply + 1,
+                    moveStack, end);
+            chessBoard.rollbackToPreviousMove(false);
+
+            if (score > bestScore) {
+                bestScore = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (score >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (inCheck && !anyMove) {
+            return -AlphaBetaBoardService.MATE + ply;
+        }
+        return bestScore;
+    }
+
+    /**
+     * @return true for quiet moves and for captures not worth searching, see the class comment.
+     */
+    private boolean isFutile(ChessBoard chessBoard, int move, int standPat, int alpha) {
+        if (Move.isPromotion(Move.getFlag(move))) {
+            return false;
+        }
+        if (!Move.isCapture(move)) {
+            return true;
+        }
+        if (standPat + boardScoringService.getPieceValue(Move.getCapturedPieceType(move)) + deltaMargin <= alpha) {
+            return true;
+        }
+        return chessBoard.see(move) < 0;
+    }
+
+    /**
+     * @return the board score for the player, rounded towards zero and clamped below the mate scores.
+     */
+    public int evaluate(ChessBoard chessBoard, Player toMove) {
+        double score = boardScoringService.scoreBoard(chessBoard, toMove);
+        return (int) Math.max(-MAX_EVALUATION, Math.min(MAX_EVALUATION, score));
+    }
+
+    /**
+     * @return the positions reached since the last call, zeroing the count.
+     */
+    public long takeNodes() {
+        long taken = nodes;
+        nodes = 0;
+        return taken;
+    }
+}
@@ -0,0 +1,16 @@
+package com.foster.search;
+
+/**
+ * One of the lines a search for several best moves found, see
+ * {@link AlphaBetaBoardService#searchLines(com.foster.ChessBoard, com.foster.SearchLimits, int)}.
+ *
+ * @param moves the principal variation, the moves both sides are expected to play from the root on, packed as
+ *              described on {@link com.foster.board.Move}. The first is the root move of the line
+ * @param score the score of the line for the player searched for
+ * @param depth the depth of the iteration that found it
+ */
+public record SearchLine(int[] moves, int score, int depth) {
+    public int move() {
+        return moves[0];
+    }
+}
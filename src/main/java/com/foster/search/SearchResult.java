@@ -0,0 +1,15 @@
+package com.foster.search;
+
+/**
+ * What the last completed iteration of a search found.
+ *
+ * @param move   the best move packed as described on {@link com.foster.board.Move}, NO_MOVE if there was no legal move
+ * @param score  the score of the move for the player searched for
+ * @param depth  the depth of the iteration
+ * @param nodes  the positions visited by the whole search
+ * @param millis how long the whole search took
+ * @param pv     the principal variation, the moves both sides are expected to play from the root on, packed like the
+ *               move. Starts with the move, empty when there is none
+ */
+public record SearchResult(int move, int score, int depth, long nodes, long millis, int[] pv) {
+}
@@ -0,0 +1,110 @@
+package com.foster.search;
+
+import com.foster.SearchLimits;
+import com.foster.board.Move;
+
+/**
+ * Decides when a search on the clock stops. {@link SearchLimits#timeBudget()} is the plan, the soft limit, and
+ * {@link SearchLimits#maxTimeBudget()} the hard limit the search is abandoned at, whatever it's doing. Every completed
+ * iteration scales the plan:
+ * <ul>
+ * <li>up when the best move changed in the last iterations, the search hasn't made up its mind yet,</li>
+ * <li>up when the score dropped since the last iteration, something went wrong that deserves a closer look,</li>
+ * <li>down when the same move has been the best for several iterations running and the score holds, it dominates.</li>
+ * </ul>
+ * No new iteration is started once the scaled plan is used up, or when going by how long the last one took it
+ * wouldn't finish before the hard limit and would only be abandoned.
+ * <p>
+ * A move time is a time to spend, not a plan, without a clock the search runs until the hard limit.
+ */
+public class TimeManager {
+    /**
+     * About how many times as long as the last one an iteration takes.
+     */
+    private static final int BRANCHING_FACTOR = 2;
+
+    /**
+     * How much of a change of the best move is still remembered an iteration later.
+     */
+    private static final double INSTABILITY_DECAY = 0.5;
+
+    /**
+     * A score drop of this many pawns or more doubles the plan, smaller drops scale it less.
+     */
+    private static final double MAX_DROP_PAWNS = 2;
+
+    /**
+     * The best move is taken to dominate once it has been the best for this many iterations running, and the plan
+     * scaled by the factor.
+     */
+    private static final int STABLE_ITERATIONS = 4;
+    private static final double STABLE_SCALE = 0.5;
+
+    private final long start;
+    private final long softNanos;
+    private final long deadline;
+    private final boolean adaptive;
+    private final double pawn;
+
+    private int bestMove = Move.NO_MOVE;
+    private int score;
+    private int stableIterations;
+    private double instability;
+    private long lastIterationEnd;
+
+    /**
+     * @param pawn  what a pawn is worth in the units of the search's scores
+     * @param start when the search started, in the nanoseconds of {@link System#nanoTime()}
+     */
+    public TimeManager(SearchLimits limits, double pawn, long start) {
+        this.start = start;
+        this.softNanos = limits.timeBudget() * 1_000_000;
+        long maxTimeBudget = limits.maxTimeBudget();
+        this.deadline = maxTimeBudget == 0 ? Long.MAX_VALUE : start + maxTimeBudget * 1_000_000;
+        this.adaptive = limits.clock() > 0;
+        this.pawn = pawn;
+        this.lastIterationEnd = start;
+    }
+
+    /**
+     * @return when the search has to stop, Long.MAX_VALUE without a time limit.
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * Learns from an iteration that just completed, see the class comment.
+     *
+     * @param now when it completed, in the nanoseconds of {@link System#nanoTime()}
+     * @return true if there is time for another iteration.
+     */
+    public boolean startsNextIteration(int iterationBestMove, int iterationScore, long now) {
+        boolean first = bestMove == Move.NO_MOVE;
+        instability *= INSTABILITY_DECAY;
+        if (first || iterationBestMove == bestMove) {
+            stableIterations++;
+        } else {
+            stableIterations = 1;
+            instability += 1;
+        }
+        double drop = first ? 0 : Math.max(0, Math.min(MAX_DROP_PAWNS, (score - iterationScore) / pawn));
+        bestMove = iterationBestMove;
+        score = iterationScore;
+        long iterationNanos = now - lastIterationEnd;
+        lastIterationEnd = now;
+
+        if (!adaptive) {
+            return true;
+        }
+        double scale = (1 + instability) * (1 + drop / MAX_DROP_PAWNS);
+        if (stableIterations >= STABLE_ITERATIONS && drop == 0) {
+            scale *= STABLE_SCALE;
+        }
+        long elapsed = now - start;
+        if (elapsed >= softNanos * scale) {
+            return false;
+        }
+        return iterationNanos * BRANCHING_FACTOR < deadline - now;
+    }
+}
@@ -0,0 +1,186 @@
+package com.foster.search;
+
+import com.foster.board.Move;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size cache of search results keyed by Zobrist key, shared by every thread searching.
+ * <p>
+ * Entries are two longs, the data and the key XORed with the data. A read only trusts the data if XORing the two
+ * gives the key back, so an entry torn by two threads writing at once reads as a miss rather than as the wrong
+ * position, and no locks are needed. The data packs
+ *
+ * <pre>
+ * bits  0 - 22 best move, see {@link Move}
+ * bits 23 - 38 score, signed
+ * bits 39 - 46 depth searched
+ * bits 47 - 48 bound, never 0 so an empty slot can't verify
+ * bits 49 - 56 age, the search that stored the entry
+ * </pre>
+ * <p>
+ * Slots are grouped in buckets of two. A store overwrites the entry of the same position if the bucket has one,
+ * otherwise the entry least worth keeping: one left by an older search before one of the current search, the
+ * shallower of the two after that.
+ */
+public class TranspositionTable {
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_UPPER = 3;
+
+    private static final int BUCKET_SIZE = 2;
+    private static final int LONGS_PER_ENTRY = 2;
+
+    private static final int SCORE_SHIFT = 23;
+    private static final int DEPTH_SHIFT = 39;
+    private static final int BOUND_SHIFT = 47;
+    private static final int AGE_SHIFT = 49;
+
+    private static final long MOVE_MASK = (1L << SCORE_SHIFT) - 1;
+    private static final long SCORE_MASK = 0xffffL;
+    private static final long DEPTH_MASK = 0xffL;
+    private static final long BOUND_MASK = 0x3L;
+    private static final long AGE_MASK = 0xffL;
+
+    /**
+     * Mate scores are stored relative to the node rather than the root, they are this close to {@link
+     * AlphaBetaBoardService#MATE} or closer.
+     */
+    private static final int MATE_BOUND = AlphaBetaBoardService.MATE - 1000;
+
+    private final long[] entries;
+    private final int bucketMask;
+    private volatile int age;
+
+    /**
+     * @param megabytes the memory to use, rounded down to a power of two buckets
+     */
+    public TranspositionTable(int megabytes) {
+        long bytesPerBucket = (long) BUCKET_SIZE * LONGS_PER_ENTRY * Long.BYTES;
+        long buckets = Math.max(1, (long) megabytes * 1024 * 1024 / bytesPerBucket);
+        int size = (int) Long.highestOneBit(Math.min(buckets, Integer.MAX_VALUE / (BUCKET_SIZE * LONGS_PER_ENTRY)));
+        this.entries = new long[size * BUCKET_SIZE * LONGS_PER_ENTRY];
+        this.bucketMask = size - 1;
+    }
+
+    /**
+     * Starts a new search, entries of earlier searches are replaced first from now on.
+     */
+    public void newSearch() {
+        age = (age + 1) & (int) AGE_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(entries, 0L);
+        age = 0;
+    }
+
+    /**
+     * @return the data stored for the position, 0 if there is none.
+     */
+    public long probe(long key) {
+        int index = getBucketIndex(key);
+        for (int i = 0; i < BUCKET_SIZE; i++, index += LONGS_PER_ENTRY) {
+            long data = entries[index + 1];
+            if ((entries[index] ^ data) == key && data != 0L) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * @param move  the best move found, NO_MOVE keeps the move already stored for the position
+     * @param score the score relative to the root
+     * @param ply   how far the position is from the root, mate scores are stored relative to the position
+     */
+    public void store(long key, int move, int score, int depth, int bound, int ply) {
+        int index = getBucketIndex(key);
+        int currentAge = age;
+        int replace = index;
+        int lowestWorth = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET_SIZE; i++, index += LONGS_PER_ENTRY) {
+            long data = entries[index + 1];
+            if ((entries[index] ^ data) == key && data != 0L) {
+                if (move == Move.NO_MOVE) {
+                    move = getMove(data);
+                }
+                replace = index;
+                break;
+            }
+            int worth = data == 0L ? -1 : getDepth(data) + (getAge(data) == currentAge ? 256 : 0);
+            if (worth < lowestWorth) {
+                lowestWorth = worth;
+                replace = index;
+            }
+        }
+
+        long data = (move & MOVE_MASK)
+                | ((toStored(score, ply) & SCORE_MASK) << SCORE_SHIFT)
+                | ((Math.max(0, Math.min(depth, (int) DEPTH_MASK)) & DEPTH_MASK) << DEPTH_SHIFT)
+                | ((bound & BOUND_MASK) << BOUND_SHIFT)
+                | ((currentAge & AGE_MASK) << AGE_SHIFT);
+        entries[replace] = key ^ data;
+        entries[replace + 1] = data;
+    }
+
+    /**
+     * @return how full the table is in permille, from a sample of its first thousand entries of the current search.
+     */
+    public int hashfull() {
+        int entriesSampled = Math.min(1000, entries.length / LONGS_PER_ENTRY);
+        int used = 0;
+        for (int i = 0; i < entriesSampled; i++) {
+            long data = entries[i * LONGS_PER_ENTRY + 1];
+            if (data != 0L && getAge(data) == age) {
+                used++;
+            }
+        }
+        return used * 1000 / entriesSampled;
+    }
+
+    public static int getMove(long data) {
+        return (int) (data & MOVE_MASK);
+    }
+
+    /**
+     * @param ply how far the probing position is from the root
+     * @return the score relative to the root.
+     */
+    public static int getScore(long data, int ply) {
+        int score = (short) ((data >>> SCORE_SHIFT) & SCORE_MASK);
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    public static int getDepth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & DEPTH_MASK);
+    }
+
+    public static int getBound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & BOUND_MASK);
+    }
+
+    public static int getAge(long data) {
+        return (int) ((data >>> AGE_SHIFT) & AGE_MASK);
+    }
+
+    private static int toStored(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        }
+        if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private int getBucketIndex(long key) {
+        return ((int) (key ^ (key >>> 32)) & bucketMask) * BUCKET_SIZE * LONGS_PER_ENTRY;
+    }
+}
@@ -0,0 +1,39 @@
+package com.foster;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SearchLimitsTest {
+
+    @Test
+    public void noTimeLimitWithoutMoveTimeOrClock() {
+        Assertions.assertThat(SearchLimits.depth(6).timeBudget()).isZero();
+        Assertions.assertThat(SearchLimits.INFINITE.timeBudget()).isZero();
+    }
+
+    @Test
+    public void clockIsSharedOverTheMovesLeft() {
+        Assertions.assertThat(SearchLimits.clock(60_000, 0).timeBudget()).isEqualTo(2_000);
+        Assertions.assertThat(SearchLimits.clock(60_000, 1_000).timeBudget()).isEqualTo(2_750);
+    }
+
+    @Test
+    public void neverSpendsTheWholeClock() {
+        Assertions.assertThat(SearchLimits.clock(100, 5_000).timeBudget()).isEqualTo(50);
+        Assertions.assertThat(new SearchLimits(0, 500, 0, 60_000, 0).timeBudget()).isEqualTo(500);
+    }
+
+    @Test
+    public void clockIsSharedOverTheMovesToGo() {
+        Assertions.assertThat(SearchLimits.clock(60_000, 0, 10).timeBudget()).isEqualTo(6_000);
+        Assertions.assertThat(SearchLimits.clock(60_000, 0, 1).timeBudget()).isEqualTo(59_950);
+    }
+
+    @Test
+    public void mayTakeAFewSharesButNeverTheWholeClock() {
+        Assertions.assertThat(SearchLimits.clock(60_000, 0).maxTimeBudget()).isEqualTo(8_000);
+        Assertions.assertThat(SearchLimits.clock(60_000, 0, 2).maxTimeBudget()).isEqualTo(59_950);
+        Assertions.assertThat(new SearchLimits(0, 500, 0, 60_000, 0).maxTimeBudget()).isEqualTo(500);
+        Assertions.assertThat(SearchLimits.depth(6).maxTimeBudget()).isZero();
+    }
+}
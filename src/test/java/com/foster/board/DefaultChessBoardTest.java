@@ -1,9 +1,15 @@
 package com.foster.board;
 
+import com.foster.Player;
+import com.foster.board.piece.King;
+import com.foster.board.piece.Pawn;
 import com.foster.board.piece.Queen;
+import com.foster.board.piece.Rook;
+import com.foster.board.zobrist.ZobristChessBoard;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -43,7 +49,7 @@ class DefaultChessBoardTest {
         var move = new Move(piece, new Position(4, 0));
         chessBoard.applyMove(move, true);
         String actual = chessBoard.translateToFEN();
-        String expected = "rnbqkbnr/pppppppp/8/8/P7/8/1PPPPPPP/RNBQKBNR - - - - -";
+        String expected = "rnbqkbnr/pppppppp/8/8/P7/8/1PPPPPPP/RNBQKBNR b KQkq a3 0 1";
         Assertions.assertThat(actual).isEqualTo(expected);
     }
 
@@ -72,7 +78,7 @@ class DefaultChessBoardTest {
         var piece = chessBoard.getWhitePieces().get(0);
         var move = new Move(piece, new Position(1, 0));
         chessBoard.applyMove(move, true);
-        var expected = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR - - - - -";
+        var expected = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
         var actual = chessBoard.rollbackToPreviousMove(true).get();
         Assertions.assertThat(actual).isEqualTo(expected);
     }
@@ -83,7 +89,7 @@ class DefaultChessBoardTest {
         var piece = chessBoard.getWhitePieces().get(0);
         var move = new Move(piece, new Position(0, 0));
         chessBoard.applyMove(move, true);
-        var expected = "p7/8/8/8/8/8/P7/8 - - - - -";
+        var expected = "p7/8/8/8/8/8/P7/8 b KQkq e3 0 1";
         var actual = chessBoard.rollbackToPreviousMove(true).get();
         Assertions.assertThat(actual).isEqualTo(expected);
     }
@@ -91,8 +97,284 @@ class DefaultChessBoardTest {
     @Test
     public void startFromDefaultNoMoveRollbackNotPossible() {
         DefaultChessBoard chessBoard = new DefaultChessBoard(null, null);
-        var expected = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR - - - - -";
+        var expected = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
         var actual = chessBoard.rollbackToPreviousMove(true).get();
         Assertions.assertThat(actual).isEqualTo(expected);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void applyMoveUpdatesKeyIncrementally() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null);
+        long startingKey = chessBoard.getKey();
+        var piece = chessBoard.getWhitePieces().stream()
+                .filter(p -> {
+                    var position = p.getPosition();
+                    return position.column() == 0 && position.row() == 6;
+                })
+                .findAny().get();
+        chessBoard.applyMove(new Move(piece, new Position(4, 0)), false);
+
+        var expected = new DefaultChessBoard(null, null, "rnbqkbnr/pppppppp/8/8/P7/8/1PPPPPPP/RNBQKBNR b KQkq a3 0 1").getKey();
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(expected);
+
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(startingKey);
+    }
+
+    @Test
+    public void promotionUpdatesKeyIncrementally() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, "1p6/P7/8/8/8/8/8/8 w - - 0 1");
+        var piece = chessBoard.getWhitePieces().get(0);
+        chessBoard.applyMove(new Move(piece, new Position(0, 1)), false);
+
+        var expected = new DefaultChessBoard(null, null, "1Q6/8/8/8/8/8/8/8 b - - 0 1").getKey();
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(expected);
+    }
+
+    @Test
+    public void rollbackSeveralMoves() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, "p7/8/8/8/8/8/P7/R7 w - - 0 1");
+        long startingKey = chessBoard.getKey();
+        var whitePawn = chessBoard.getWhitePieces().get(0);
+        var whiteRook = chessBoard.getWhitePieces().get(1);
+        var blackPawn = chessBoard.getBlackPieces().get(0);
+
+        chessBoard.applyMove(new Move(whitePawn, new Position(4, 0)), false);
+        chessBoard.applyMove(new Move(blackPawn, new Position(3, 0)), false);
+        chessBoard.applyMove(new Move(whitePawn, new Position(3, 0)), false);
+        chessBoard.applyMove(new Move(whiteRook, new Position(7, 7)), false);
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo("8/8/8/P7/8/8/8/7R b - - 1 2");
+
+        chessBoard.rollbackToPreviousMove(false);
+        chessBoard.rollbackToPreviousMove(false);
+        chessBoard.rollbackToPreviousMove(false);
+        var actual = chessBoard.rollbackToPreviousMove(true).get();
+        Assertions.assertThat(actual).isEqualTo("p7/8/8/8/8/8/P7/R7 w - - 0 1");
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(startingKey);
+    }
+
+    @Test
+    public void promotionAfterAQueenIsTakenRollsBackToTheTakenQueen() {
+        String fen = "4k3/1P6/8/8/8/8/7K/3Qr3 b - - 0 1";
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, fen);
+        long startingKey = chessBoard.getKey();
+
+        Assertions.assertThat(chessBoard.makeMove(Move.createCapture(4, 3, Move.ROOK, Move.QUEEN, Move.FLAG_NONE))).isTrue();
+        Assertions.assertThat(chessBoard.makeMove(Move.createMove(49, 57, Move.PAWN, Move.FLAG_PROMOTE_QUEEN))).isTrue();
+        Assertions.assertThat(chessBoard.translateToFEN()).startsWith("1Q2k3/8/8/8/8/8/7K/3r4 b");
+
+        chessBoard.rollbackToPreviousMove(false);
+        var actual = chessBoard.rollbackToPreviousMove(true).get();
+        Assertions.assertThat(actual).isEqualTo(fen);
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(startingKey);
+    }
+
+    @Test
+    public void promotingIntoATakenSpareRollsBackToWhereItWasTaken() {
+        String fen = "r3k3/1PP5/8/8/8/8/8/4K3 w - - 0 1";
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, fen);
+        long startingKey = chessBoard.getKey();
+
+        Assertions.assertThat(chessBoard.makeMove(Move.createMove(49, 57, Move.PAWN, Move.FLAG_PROMOTE_QUEEN))).isTrue();
+        Assertions.assertThat(chessBoard.makeMove(Move.createCapture(56, 57, Move.ROOK, Move.QUEEN, Move.FLAG_NONE))).isTrue();
+        Assertions.assertThat(chessBoard.makeMove(Move.createMove(50, 58, Move.PAWN, Move.FLAG_PROMOTE_QUEEN))).isTrue();
+        Assertions.assertThat(chessBoard.translateToFEN()).startsWith("1rQ1k3/8/8/8/8/8/8/4K3 b");
+
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.translateToFEN()).startsWith("1r2k3/2P5/8/8/8/8/8/4K3 w");
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.translateToFEN()).startsWith("rQ2k3/2P5/8/8/8/8/8/4K3 b");
+        var actual = chessBoard.rollbackToPreviousMove(true).get();
+        Assertions.assertThat(actual).isEqualTo(fen);
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(startingKey);
+    }
+
+    @Test
+    public void promotesAfterLoadingAnotherFEN() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null);
+        chessBoard.loadFromFEN("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+
+        Assertions.assertThat(chessBoard.makeMove(Move.createMove(49, 57, Move.PAWN, Move.FLAG_PROMOTE_QUEEN))).isTrue();
+        Assertions.assertThat(chessBoard.translateToFEN()).startsWith("1Q2k3/8/8/8/8/8/8/4K3 b");
+    }
+
+    @Test
+    public void generatedMovesArePackedAndPlayable() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, "8/8/5p2/8/4N3/8/8/8 w - - 0 1");
+        long startingKey = chessBoard.getKey();
+        var knight = chessBoard.getWhitePieces().get(0);
+
+        int[] moves = new int[32];
+        int count = knight.generateMoves(chessBoard, moves, 0);
+        Assertions.assertThat(count).isEqualTo(8);
+
+        int capture = Arrays.stream(moves, 0, count)
+                .filter(move -> Move.getTo(move) == 45)
+                .findAny().getAsInt();
+        Assertions.assertThat(Move.getFrom(capture)).isEqualTo(28);
+        Assertions.assertThat(Move.getPieceType(capture)).isEqualTo(Move.KNIGHT);
+        Assertions.assertThat(Move.isCapture(capture)).isTrue();
+        Assertions.assertThat(Move.getCapturedPieceType(capture)).isEqualTo(Move.PAWN);
+
+        Assertions.assertThat(chessBoard.makeMove(capture)).isTrue();
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo("8/8/5N2/8/8/8/8/8 b - - 0 1");
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(startingKey);
+    }
+
+    @Test
+    public void keysTheSideToMoveLikeTheBitboardBoard() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null);
+        var bitboardBoard = new ZobristChessBoard(null, null);
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(bitboardBoard.getKey());
+
+        int move = Move.createMove(12, 28, Move.PAWN, Move.FLAG_NONE);
+        Assertions.assertThat(chessBoard.makeMove(move)).isTrue();
+        Assertions.assertThat(bitboardBoard.makeMove(move)).isTrue();
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(bitboardBoard.getKey());
+
+        long key = chessBoard.getKey();
+        chessBoard.makeNullMove();
+        bitboardBoard.makeNullMove();
+        Assertions.assertThat(chessBoard.getKey()).isNotEqualTo(key).isEqualTo(bitboardBoard.getKey());
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(key);
+    }
+
+    @Test
+    public void makeMoveFromEmptySquareIsRefused() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null);
+        long startingKey = chessBoard.getKey();
+        boolean actual = chessBoard.makeMove(Move.createMove(20, 28, Move.PAWN, Move.FLAG_NONE));
+        Assertions.assertThat(actual).isFalse();
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(startingKey);
+    }
+
+    @Test
+    public void mailboxFollowsCapturesPromotionsAndRollbacks() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, "1r6/P7/8/8/8/8/8/8 w - - 0 1");
+        var pawn = chessBoard.getPiece(48);
+        var rook = chessBoard.getPiece(57);
+        Assertions.assertThat(chessBoard.getOccupancy(Player.white)).isEqualTo(1L << 48);
+        Assertions.assertThat(chessBoard.getOccupancy(Player.black)).isEqualTo(1L << 57);
+
+        chessBoard.applyMove(new Move(pawn, new Position(0, 1)), false);
+        Assertions.assertThat(chessBoard.getPiece(48)).isNull();
+        Assertions.assertThat(chessBoard.getPiece(57)).isInstanceOf(Queen.class);
+        Assertions.assertThat(chessBoard.getOccupancy(Player.white)).isEqualTo(1L << 57);
+        Assertions.assertThat(chessBoard.getOccupancy(Player.black)).isZero();
+
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.getPiece(48)).isSameAs(pawn);
+        Assertions.assertThat(chessBoard.getPiece(57)).isSameAs(rook);
+        Assertions.assertThat(chessBoard.getOccupancy(Player.white)).isEqualTo(1L << 48);
+        Assertions.assertThat(chessBoard.getOccupancy(Player.black)).isEqualTo(1L << 57);
+    }
+
+    @Test
+    public void movesLeavingTheKingInCheckAreNotGenerated() {
+        // the e2 bishop is pinned by the e8 rook, the king can't step onto the d file the queen covers
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, "3qr2k/8/8/8/8/8/4B3/4K3 w - - 0 1");
+        int[] moves = new int[64];
+        int count = chessBoard.generateMoves(Player.white, moves, 0);
+
+        Assertions.assertThat(Arrays.stream(moves, 0, count).map(Move::getTo).boxed().collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(5, 13);
+    }
+
+    @Test
+    public void castlingMovesTheRookAndRollsBack() {
+        String fen = "r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1";
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, fen);
+        long startingKey = chessBoard.getKey();
+        int[] moves = new int[64];
+        int count = chessBoard.generateMoves(Player.white, moves, 0);
+        int castle = Arrays.stream(moves, 0, count)
+                .filter(move -> Move.getFlag(move) == Move.FLAG_CASTLE_KINGSIDE)
+                .findAny().getAsInt();
+
+        Assertions.assertThat(chessBoard.makeMove(castle)).isTrue();
+        Assertions.assertThat(chessBoard.getPiece(6)).isInstanceOf(King.class);
+        Assertions.assertThat(chessBoard.getPiece(5)).isInstanceOf(Rook.class);
+        Assertions.assertThat(chessBoard.getPiece(7)).isNull();
+        Assertions.assertThat(chessBoard.canCastle(Player.white, false)).isFalse();
+
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.getPiece(4)).isInstanceOf(King.class);
+        Assertions.assertThat(chessBoard.getPiece(7)).isInstanceOf(Rook.class);
+        Assertions.assertThat(chessBoard.getPiece(5)).isNull();
+        Assertions.assertThat(chessBoard.canCastle(Player.white, true)).isTrue();
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(startingKey);
+    }
+
+    @Test
+    public void copyIsIndependentOfTheOriginal() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, "r3k2r/8/8/8/3pP3/8/8/R3K2R b Kq e3 0 1");
+        var copy = chessBoard.copy();
+        Assertions.assertThat(copy.getKey()).isEqualTo(chessBoard.getKey());
+        Assertions.assertThat(copy.canCastle(Player.white, false)).isFalse();
+        Assertions.assertThat(copy.getEnPassantLocation()).isEqualTo(20);
+
+        Assertions.assertThat(copy.makeMove(Move.createCapture(27, 20, Move.PAWN, Move.PAWN, Move.FLAG_EN_PASSANT))).isTrue();
+        Assertions.assertThat(copy.getKey()).isNotEqualTo(chessBoard.getKey());
+        Assertions.assertThat(chessBoard.getPiece(28)).isInstanceOf(Pawn.class);
+    }
+
+    @Test
+    public void nullMoveClearsEnPassantAndRollsBack() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, "r3k2r/8/8/8/3pP3/8/8/R3K2R b Kq e3 0 1");
+        long key = chessBoard.getKey();
+        Assertions.assertThat(chessBoard.getPieceMaterial(Player.white)).isEqualTo(1000);
+
+        chessBoard.makeNullMove();
+        Assertions.assertThat(chessBoard.getEnPassantLocation()).isEqualTo(-1);
+        Assertions.assertThat(chessBoard.getKey()).isNotEqualTo(key);
+
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.getEnPassantLocation()).isEqualTo(20);
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(key);
+    }
+
+    @Test
+    public void repetitionIsFoundWithinTheReversibleMoves() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, "4k3/8/8/8/8/8/4P3/4K1N1 w - - 0 1");
+        playKnightShuffle(chessBoard);
+        Assertions.assertThat(chessBoard.isRepetition()).isTrue();
+        Assertions.assertThat(chessBoard.getHalfMoveClock()).isEqualTo(4);
+
+        // the pawn move can't be taken back, nothing before it repeats
+        chessBoard.makeMove(Move.createMove(12, 20, Move.PAWN, Move.FLAG_NONE));
+        Assertions.assertThat(chessBoard.isRepetition()).isFalse();
+        Assertions.assertThat(chessBoard.getHalfMoveClock()).isZero();
+
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.isRepetition()).isTrue();
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo("4k3/8/8/8/8/8/4P3/4K1N1 w - - 4 3");
+    }
+
+    private static void playKnightShuffle(DefaultChessBoard chessBoard) {
+        chessBoard.makeMove(Move.createMove(6, 21, Move.KNIGHT, Move.FLAG_NONE));
+        chessBoard.makeMove(Move.createMove(60, 59, Move.KING, Move.FLAG_NONE));
+        chessBoard.makeMove(Move.createMove(21, 6, Move.KNIGHT, Move.FLAG_NONE));
+        chessBoard.makeMove(Move.createMove(59, 60, Move.KING, Move.FLAG_NONE));
+    }
+
+    @Test
+    public void enPassantTakesThePawnBeside() {
+        DefaultChessBoard chessBoard = new DefaultChessBoard(null, null, "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1");
+        int[] moves = new int[64];
+        int count = chessBoard.generateMoves(Player.white, moves, 0);
+        int enPassant = Arrays.stream(moves, 0, count)
+                .filter(move -> Move.getFlag(move) == Move.FLAG_EN_PASSANT)
+                .findAny().getAsInt();
+        Assertions.assertThat(Move.getTo(enPassant)).isEqualTo(43);
+
+        Assertions.assertThat(chessBoard.makeMove(enPassant)).isTrue();
+        Assertions.assertThat(chessBoard.getPiece(35)).isNull();
+        Assertions.assertThat(chessBoard.getOccupancy(Player.black)).isEqualTo(1L << 60);
+
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.getPiece(35)).isInstanceOf(Pawn.class);
+        Assertions.assertThat(chessBoard.getPiece(36)).isInstanceOf(Pawn.class);
+    }
+}
@@ -0,0 +1,85 @@
+package com.foster.board;
+
+import com.foster.ChessBoard;
+import com.foster.board.zobrist.BBUtils;
+import com.foster.board.zobrist.ZobristChessBoard;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The reference positions and counts from the chess programming wiki's perft results page, at depths that finish in
+ * seconds.
+ */
+class PerftTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    private static final String POSITION_5 = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+    private static final String POSITION_6 = "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10";
+
+    @Test
+    public void startingPosition() {
+        Assertions.assertThat(perft(BBUtils.START_FEN, 4)).isEqualTo(197281);
+    }
+
+    @Test
+    public void kiwipete() {
+        Assertions.assertThat(perft(KIWIPETE, 3)).isEqualTo(97862);
+    }
+
+    @Test
+    public void position3() {
+        Assertions.assertThat(perft(POSITION_3, 5)).isEqualTo(674624);
+    }
+
+    @Test
+    public void position4() {
+        Assertions.assertThat(perft(POSITION_4, 3)).isEqualTo(9467);
+    }
+
+    @Test
+    public void position5() {
+        Assertions.assertThat(perft(POSITION_5, 3)).isEqualTo(62379);
+    }
+
+    @Test
+    public void position6() {
+        Assertions.assertThat(perft(POSITION_6, 3)).isEqualTo(89890);
+    }
+
+    @Test
+    public void hashingDoesNotChangeTheCount() {
+        var chessBoard = new ZobristChessBoard(null, null, KIWIPETE);
+        var perft = new Perft(chessBoard, Perft.sideToMove(KIWIPETE), 1 << 16);
+        Assertions.assertThat(perft.perft(4)).isEqualTo(4085603);
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo(KIWIPETE);
+    }
+
+    @Test
+    public void divideAddsUpToTheTotal() {
+        var perft = new Perft(new ZobristChessBoard(null, null), Perft.sideToMove(BBUtils.START_FEN));
+        var result = perft.run(3, true);
+
+        Assertions.assertThat(result.nodes()).isEqualTo(8902);
+        Assertions.assertThat(result.divide()).hasSize(20).containsEntry("e2e4", 600L).containsEntry("g1f3", 440L);
+        Assertions.assertThat(result.divide().values().stream().mapToLong(Long::longValue).sum()).isEqualTo(8902);
+    }
+
+    @Test
+    public void pieceBoardMatchesTheReferenceCounts() {
+        Assertions.assertThat(perft(new DefaultChessBoard(null, null, BBUtils.START_FEN), BBUtils.START_FEN, 3)).isEqualTo(8902);
+        Assertions.assertThat(perft(new DefaultChessBoard(null, null, KIWIPETE), KIWIPETE, 2)).isEqualTo(2039);
+        Assertions.assertThat(perft(new DefaultChessBoard(null, null, POSITION_3), POSITION_3, 4)).isEqualTo(43238);
+        // both promote, to every piece, within three plies
+        Assertions.assertThat(perft(new DefaultChessBoard(null, null, POSITION_4), POSITION_4, 3)).isEqualTo(9467);
+        Assertions.assertThat(perft(new DefaultChessBoard(null, null, POSITION_5), POSITION_5, 3)).isEqualTo(62379);
+    }
+
+    private static long perft(String fen, int depth) {
+        return perft(new ZobristChessBoard(null, null, fen), fen, depth);
+    }
+
+    private static long perft(ChessBoard chessBoard, String fen, int depth) {
+        return new Perft(chessBoard, Perft.sideToMove(fen)).perft(depth);
+    }
+}
@@ -2,18 +2,16 @@ package com.foster.board.piece;
 
 import com.foster.ChessBoard;
 import com.foster.Player;
+import com.foster.board.DefaultChessBoard;
 import com.foster.board.Position;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
-
-import java.util.List;
 
 class KnightTest {
     @Test
     public void filterRowsColumnsToRemainWithinBoard() {
         Knight knight = new Knight(Player.white, new Position(0, 0));
-        ChessBoard board = Mockito.mock(ChessBoard.class);
+        ChessBoard board = new DefaultChessBoard(null, null, "8/8/8/8/8/8/8/8 w - - 0 1");
         var actual = knight.possibleStreamMoves(board)
                 .map(move -> move.destination())
                 .filter(position -> position.column() < 0 || position.column() > 8 || position.row() < 0 || position.row() > 8)
@@ -25,7 +23,7 @@ class KnightTest {
     @Test
     public void allMovesAreValid() {
         Knight knight = new Knight(Player.white, new Position(3, 3));
-        ChessBoard board = Mockito.mock(ChessBoard.class);
+        ChessBoard board = new DefaultChessBoard(null, null, "8/8/8/8/8/8/8/8 w - - 0 1");
         var actual = knight.possibleStreamMoves(board).count();
         long expected = 8;
         Assertions.assertThat(actual).isEqualTo(expected);
@@ -33,18 +31,7 @@ class KnightTest {
 
     @Test
     public void allValidMovesAreTakenBySamePieces() {
-        ChessBoard board = Mockito.mock(ChessBoard.class);
-        Mockito.when(board.getWhitePieces()).thenReturn(
-                List.of(new Pawn(Player.white, new Position(5, 4)),
-                        new Pawn(Player.white, new Position(5, 2)),
-                        new Pawn(Player.white, new Position(1, 4)),
-                        new Pawn(Player.white, new Position(1, 2)),
-                        new Pawn(Player.white, new Position(4, 5)),
-                        new Pawn(Player.white, new Position(4, 1)),
-                        new Pawn(Player.white, new Position(2, 5)),
-                        new Pawn(Player.white, new Position(2, 1))
-                )
-        );
+        ChessBoard board = new DefaultChessBoard(null, null, "8/2P1P3/1P3P2/8/1P3P2/2P1P3/8/8 w - - 0 1");
         Knight knight = new Knight(Player.white, new Position(3, 3));
         var actual = knight.possibleStreamMoves(board).count();
         long expected = 0;
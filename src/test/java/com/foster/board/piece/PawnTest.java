@@ -2,57 +2,46 @@ package com.foster.board.piece;
 
 import com.foster.ChessBoard;
 import com.foster.Player;
+import com.foster.board.DefaultChessBoard;
 import com.foster.board.Move;
 import com.foster.board.Position;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
-
-import java.util.Arrays;
 
+/**
+ * Rows count down from the eighth rank, so a white pawn on its home rank stands on row 6 and moves to lower rows.
+ */
 class PawnTest {
     @Test
     public void possibleStarting2PositionMoves() {
-        ChessBoard chessBoard = Mockito.mock(ChessBoard.class);
+        ChessBoard chessBoard = new DefaultChessBoard(null, null, "8/8/8/8/8/8/8/8 w - - 0 1");
 
-        Pawn pawn = new Pawn(Player.white, new Position(1, 1));
+        Pawn pawn = new Pawn(Player.white, new Position(6, 1));
         var actual = pawn.possibleMoves(chessBoard);
         Move[] expected = {
-                new Move(pawn, new Position(2, 1)),
-                new Move(pawn, new Position(3, 1))
+                new Move(pawn, new Position(5, 1)),
+                new Move(pawn, new Position(4, 1))
         };
         Assertions.assertThat(actual).containsOnly(expected);
     }
 
     @Test
     public void possibleStarting1PositionMoves() {
-        ChessBoard chessBoard = Mockito.mock(ChessBoard.class);
-        Mockito.when(chessBoard.getBlackPieces()).thenReturn(Arrays.asList(
-                new Pawn(Player.black, new Position(3, 1))
-        ));
-        Mockito.when(chessBoard.getWhitePieces()).thenReturn(Arrays.asList(
-                new Pawn(Player.white, new Position(3, 1))
-        ));
+        ChessBoard chessBoard = new DefaultChessBoard(null, null, "8/8/8/8/1p6/8/8/8 w - - 0 1");
 
-        Pawn pawn = new Pawn(Player.white, new Position(1, 1));
+        Pawn pawn = new Pawn(Player.white, new Position(6, 1));
         var actual = pawn.possibleMoves(chessBoard);
         Move[] expected = {
-                new Move(pawn, new Position(2, 1))
+                new Move(pawn, new Position(5, 1))
         };
         Assertions.assertThat(actual).containsOnly(expected);
     }
 
     @Test
     public void possibleStarting0PositionMoves() {
-        ChessBoard chessBoard = Mockito.mock(ChessBoard.class);
-        Mockito.when(chessBoard.getBlackPieces()).thenReturn(Arrays.asList(
-                new Pawn(Player.black, new Position(2, 1))
-        ));
-        Mockito.when(chessBoard.getWhitePieces()).thenReturn(Arrays.asList(
-                new Pawn(Player.white, new Position(2, 1))
-        ));
+        ChessBoard chessBoard = new DefaultChessBoard(null, null, "8/8/8/8/8/1p6/8/8 w - - 0 1");
 
-        Pawn pawn = new Pawn(Player.white, new Position(1, 1));
+        Pawn pawn = new Pawn(Player.white, new Position(6, 1));
         var actual = pawn.possibleMoves(chessBoard);
         Move[] expected = {};
         Assertions.assertThat(actual).containsOnly(expected);
@@ -60,18 +49,29 @@ class PawnTest {
 
     @Test
     public void takeOpponentPieces() {
-        ChessBoard chessBoard = Mockito.mock(ChessBoard.class);
-        Mockito.when(chessBoard.getBlackPieces()).thenReturn(Arrays.asList(
-                new Pawn(Player.black, new Position(2, 0)),
-                new Pawn(Player.black, new Position(2, 2))
-        ));
+        ChessBoard chessBoard = new DefaultChessBoard(null, null, "8/8/8/8/8/p1p5/8/8 w - - 0 1");
 
-        Pawn pawn = new Pawn(Player.white, new Position(1, 1));
+        Pawn pawn = new Pawn(Player.white, new Position(6, 1));
         var actual = pawn.possibleMoves(chessBoard);
         Move[] expected = {
-                new Move(pawn, new Position(2, 0)),
-                new Move(pawn, new Position(2, 2))
+                new Move(pawn, new Position(5, 0)),
+                new Move(pawn, new Position(5, 2))
         };
         Assertions.assertThat(actual).contains(expected);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void promotesToEveryPiece() {
+        ChessBoard chessBoard = new DefaultChessBoard(null, null, "8/8/8/8/8/8/8/8 w - - 0 1");
+
+        Pawn pawn = new Pawn(Player.white, new Position(1, 1));
+        var actual = pawn.possibleMoves(chessBoard);
+        Move[] expected = {
+                new Move(pawn, new Position(0, 1), Move.QUEEN),
+                new Move(pawn, new Position(0, 1), Move.ROOK),
+                new Move(pawn, new Position(0, 1), Move.BISHOP),
+                new Move(pawn, new Position(0, 1), Move.KNIGHT)
+        };
+        Assertions.assertThat(actual).containsExactlyInAnyOrder(expected);
+    }
+}
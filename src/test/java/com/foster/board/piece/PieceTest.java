@@ -2,11 +2,11 @@ package com.foster.board.piece;
 
 import com.foster.ChessBoard;
 import com.foster.Player;
+import com.foster.board.DefaultChessBoard;
 import com.foster.board.Move;
 import com.foster.board.Position;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
-import org.mockito.Mockito;
 
 import java.util.Arrays;
 import java.util.List;
@@ -16,20 +16,10 @@ import java.util.stream.Stream;
 class PieceTest {
     @Test
     public void testPossibleHorizontalMoves() {
-        Piece piece = new Piece(Player.white, new Position(1, 1)) {
-            @Override
-            public List<Move> possibleMoves(ChessBoard board) {
-                return null;
-            }
-
-            @Override
-            public Stream<Move> possibleStreamMoves(ChessBoard board) {
-                return null;
-            }
-        };
+        Piece piece = piece(new Position(1, 1));
 
-        var board = Mockito.mock(ChessBoard.class);
-        Stream<Move> builder = piece.generateMoves(false, 8, true, 8, board);
+        var board = new DefaultChessBoard(null, null, "8/8/8/8/8/8/8/8 w - - 0 1");
+        Stream<Move> builder = generateMoves(piece, false, 8, true, 8, board);
 
         List<Move> moves = builder.collect(Collectors.toList());
         Assertions.assertThat(moves.size()).isEqualTo(14);
@@ -37,20 +27,10 @@ class PieceTest {
 
     @Test
     public void testPossibleDiagonalMoves() {
-        Piece piece = new Piece(Player.white, new Position(1, 1)) {
-            @Override
-            public List<Move> possibleMoves(ChessBoard board) {
-                return null;
-            }
+        Piece piece = piece(new Position(1, 1));
 
-            @Override
-            public Stream<Move> possibleStreamMoves(ChessBoard board) {
-                return null;
-            }
-        };
-
-        var board = Mockito.mock(ChessBoard.class);
-        Stream<Move> builder = piece.generateMoves(true, 1, false, 1, board);
+        var board = new DefaultChessBoard(null, null, "8/8/8/8/8/8/8/8 w - - 0 1");
+        Stream<Move> builder = generateMoves(piece, true, 1, false, 1, board);
 
         List<Move> moves = builder.collect(Collectors.toList());
         Assertions.assertThat(moves.size()).isEqualTo(4);
@@ -58,70 +38,33 @@ class PieceTest {
 
     @Test
     public void testInvalidMoves() {
-        Piece piece = new Piece(Player.white, new Position(-1, 0)) {
-            @Override
-            public List<Move> possibleMoves(ChessBoard board) {
-                return null;
-            }
+        Piece piece = piece(new Position(0, 0));
 
-            @Override
-            public Stream<Move> possibleStreamMoves(ChessBoard board) {
-                return null;
-            }
-        };
-
-        var board = Mockito.mock(ChessBoard.class);
-        Stream<Move> builder = piece.generateMoves(true, 8, true, 8, board);
+        var board = new DefaultChessBoard(null, null, "8/8/8/8/8/8/8/8 w - - 0 1");
+        Stream<Move> builder = generateMoves(piece, true, 8, true, 8, board);
 
         List<Move> moves = builder.toList();
-        Assertions.assertThat(moves.size()).isEqualTo(15);
+        Assertions.assertThat(moves.size()).isEqualTo(21);
+        Assertions.assertThat(moves).allMatch(move -> move.destination().row() >= 0 && move.destination().row() < 8
+                && move.destination().column() >= 0 && move.destination().column() < 8);
     }
 
     @Test
     public void testIfTakenBySame() {
-        Piece piece = new Piece(Player.white, new Position(0, 0)) {
-            @Override
-            public List<Move> possibleMoves(ChessBoard board) {
-                return null;
-            }
-
-            @Override
-            public Stream<Move> possibleStreamMoves(ChessBoard board) {
-                return null;
-            }
-        };
+        Piece piece = piece(new Position(0, 0));
 
-        var board = Mockito.mock(ChessBoard.class);
-        Mockito.when(board.getWhitePieces()).thenReturn(Arrays.asList(
-                new Pawn(Player.white, new Position(0, 1)),
-                new Pawn(Player.white, new Position(1, 1)),
-                new Pawn(Player.white, new Position(1, 0))
-        ));
-        Stream<Move> builder = piece.generateMoves(true, 1, true, 1, board);
+        var board = new DefaultChessBoard(null, null, "1P6/PP6/8/8/8/8/8/8 w - - 0 1");
+        Stream<Move> builder = generateMoves(piece, true, 1, true, 1, board);
 
         Assertions.assertThat(builder.toList().size()).isEqualTo(0);
     }
 
     @Test
     public void testBlockedHorizontalBySamePieces() {
-        Piece piece = new Piece(Player.white, new Position(2, 3)) {
-            @Override
-            public List<Move> possibleMoves(ChessBoard board) {
-                return null;
-            }
+        Piece piece = piece(new Position(2, 3));
 
-            @Override
-            public Stream<Move> possibleStreamMoves(ChessBoard board) {
-                return null;
-            }
-        };
-
-        var board = Mockito.mock(ChessBoard.class);
-        Mockito.when(board.getWhitePieces()).thenReturn(Arrays.asList(
-                new Pawn(Player.white, new Position(2, 1)),
-                new Pawn(Player.white, new Position(2, 5))
-        ));
-        Stream<Move> builder = piece.generateMoves(false, 8, true, 8, board);
+        var board = new DefaultChessBoard(null, null, "8/8/1P3P2/8/8/8/8/8 w - - 0 1");
+        Stream<Move> builder = generateMoves(piece, false, 8, true, 8, board);
 
         List<Move> moves = builder.collect(Collectors.toList());
         Assertions.assertThat(moves).containsOnly(
@@ -139,23 +82,10 @@ class PieceTest {
 
     @Test
     public void testBlockedVerticalBySamePieces() {
-        Piece piece = new Piece(Player.white, new Position(3, 2)) {
-            @Override
-            public List<Move> possibleMoves(ChessBoard board) {
-                return null;
-            }
+        Piece piece = piece(new Position(3, 2));
 
-            public Stream<Move> possibleStreamMoves(ChessBoard board) {
-                return null;
-            }
-        };
-
-        var board = Mockito.mock(ChessBoard.class);
-        Mockito.when(board.getWhitePieces()).thenReturn(Arrays.asList(
-                new Pawn(Player.white, new Position(1, 2)),
-                new Pawn(Player.white, new Position(5, 2))
-        ));
-        Stream<Move> builder = piece.generateMoves(false, 8, true, 8, board);
+        var board = new DefaultChessBoard(null, null, "8/2P5/8/8/8/2P5/8/8 w - - 0 1");
+        Stream<Move> builder = generateMoves(piece, false, 8, true, 8, board);
 
         List<Move> moves = builder.collect(Collectors.toList());
         Assertions.assertThat(moves).containsOnly(
@@ -173,21 +103,10 @@ class PieceTest {
 
     @Test
     public void testDiagonalPieces() {
-        Piece piece = new Piece(Player.white, new Position(3, 2)) {
-            @Override
-            public List<Move> possibleMoves(ChessBoard board) {
-                return null;
-            }
-
-            public Stream<Move> possibleStreamMoves(ChessBoard board) {
-                return null;
-            }
-        };
+        Piece piece = piece(new Position(3, 2));
 
-        var board = Mockito.mock(ChessBoard.class);
-        Mockito.when(board.getWhitePieces())
-                .thenReturn(Arrays.asList());
-        Stream<Move> builder = piece.generateMoves(true, 8, false, 8, board);
+        var board = new DefaultChessBoard(null, null, "8/8/8/8/8/8/8/8 w - - 0 1");
+        Stream<Move> builder = generateMoves(piece, true, 8, false, 8, board);
 
         List<Move> actual = builder.collect(Collectors.toList());
         Move[] expected = {new Move(piece, new Position(4, 3)),
@@ -212,30 +131,10 @@ class PieceTest {
 
     @Test
     public void testBlockedDiagonalPieces() {
-        Piece piece = new Piece(Player.white, new Position(2, 2)) {
-            @Override
-            public List<Move> possibleMoves(ChessBoard board) {
-                return null;
-            }
+        Piece piece = piece(new Position(2, 2));
 
-            public Stream<Move> possibleStreamMoves(ChessBoard board) {
-                return null;
-            }
-        };
-
-        var board = Mockito.mock(ChessBoard.class);
-        List<Piece> whitePieces = Arrays.asList(
-                // + +
-                new Pawn(Player.white, new Position(0, 0)),
-                // + -
-                new Pawn(Player.white, new Position(0, 4)),
-                // - +
-                new Pawn(Player.white, new Position(4, 0)),
-                // - -
-                new Pawn(Player.white, new Position(4, 4))
-        );
-        Mockito.when(board.getWhitePieces()).thenReturn(whitePieces);
-        Stream<Move> builder = piece.generateMoves(true, 8, false, 8, board);
+        var board = new DefaultChessBoard(null, null, "P3P3/8/8/8/P3P3/8/8/8 w - - 0 1");
+        Stream<Move> builder = generateMoves(piece, true, 8, false, 8, board);
 
         List<Move> actual = builder.collect(Collectors.toList());
         Move[] expected = {
@@ -256,30 +155,10 @@ class PieceTest {
 
     @Test
     public void blockedDiagonallyByOpposingPieces() {
-        Piece piece = new Piece(Player.white, new Position(2, 2)) {
-            @Override
-            public List<Move> possibleMoves(ChessBoard board) {
-                return null;
-            }
+        Piece piece = piece(new Position(2, 2));
 
-            public Stream<Move> possibleStreamMoves(ChessBoard board) {
-                return null;
-            }
-        };
-
-        var board = Mockito.mock(ChessBoard.class);
-        List<Piece> blackPieces = Arrays.asList(
-                // + +
-                new Pawn(Player.black, new Position(0, 0)),
-                // + -
-                new Pawn(Player.black, new Position(0, 4)),
-                // - +
-                new Pawn(Player.black, new Position(4, 0)),
-                // - -
-                new Pawn(Player.black, new Position(4, 4))
-        );
-        Mockito.when(board.getBlackPieces()).thenReturn(blackPieces);
-        Stream<Move> builder = piece.generateMoves(true, 8, false, 8, board);
+        var board = new DefaultChessBoard(null, null, "p3p3/8/8/8/p3p3/8/8/8 w - - 0 1");
+        Stream<Move> builder = generateMoves(piece, true, 8, false, 8, board);
 
         List<Move> actual = builder.collect(Collectors.toList());
         Move[] expected = {
@@ -298,26 +177,10 @@ class PieceTest {
 
     @Test
     public void blockedHorizontallyByOpposingPieces() {
-        Piece piece = new Piece(Player.white, new Position(2, 2)) {
-            @Override
-            public List<Move> possibleMoves(ChessBoard board) {
-                return null;
-            }
+        Piece piece = piece(new Position(2, 2));
 
-            public Stream<Move> possibleStreamMoves(ChessBoard board) {
-                return null;
-            }
-        };
-
-        var board = Mockito.mock(ChessBoard.class);
-        List<Piece> blackPieces = Arrays.asList(
-                new Pawn(Player.black, new Position(0, 2)),
-                new Pawn(Player.black, new Position(2, 0)),
-                new Pawn(Player.black, new Position(2, 4)),
-                new Pawn(Player.black, new Position(4, 2))
-        );
-        Mockito.when(board.getBlackPieces()).thenReturn(blackPieces);
-        Stream<Move> builder = piece.generateMoves(false, 8, true, 8, board);
+        var board = new DefaultChessBoard(null, null, "2p5/8/p3p3/8/2p5/8/8/8 w - - 0 1");
+        Stream<Move> builder = generateMoves(piece, false, 8, true, 8, board);
 
         List<Move> actual = builder.collect(Collectors.toList());
         Move[] expected = {
@@ -333,4 +196,26 @@ class PieceTest {
         };
         Assertions.assertThat(actual).containsOnly(expected);
     }
-}
\ No newline at end of file
+
+    private static Piece piece(Position position) {
+        return new Piece(Player.white, position) {
+            @Override
+            public int getType() {
+                return Move.QUEEN;
+            }
+
+            @Override
+            public int generateMoves(ChessBoard board, int[] moves, int offset) {
+                return offset;
+            }
+        };
+    }
+
+    private static Stream<Move> generateMoves(Piece piece, boolean generateDiagonal, int maxDiagonal,
+                                              boolean generateHorizontal, int maxHorizontal, ChessBoard board) {
+        int[] moves = new int[Piece.MAX_MOVES];
+        int count = piece.generateMoves(generateDiagonal, maxDiagonal, generateHorizontal, maxHorizontal, board, moves, 0);
+        return Arrays.stream(moves, 0, count)
+                .mapToObj(move -> new Move(piece, Position.fromLocation(Move.getTo(move))));
+    }
+}
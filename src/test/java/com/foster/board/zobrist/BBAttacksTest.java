@@ -0,0 +1,26 @@
+package com.foster.board.zobrist;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class BBAttacksTest {
+
+    @Test
+    public void knightAndKingInTheCorner() {
+        Assertions.assertThat(BBAttacks.getKnightAttacks(0))
+                .isEqualTo(BBUtils.getSquare(1, 2) | BBUtils.getSquare(2, 1));
+        Assertions.assertThat(BBAttacks.getKingAttacks(63))
+                .isEqualTo(BBUtils.getSquare(7, 6) | BBUtils.getSquare(6, 7) | BBUtils.getSquare(6, 6));
+        Assertions.assertThat(Long.bitCount(BBAttacks.getKnightAttacks(27))).isEqualTo(8);
+    }
+
+    @Test
+    public void pawnsCaptureAndPushTowardsTheOpponent() {
+        // a2 and h7 only have one capture each, on the edge file
+        Assertions.assertThat(BBAttacks.getPawnAttacks(8, true)).isEqualTo(BBUtils.getSquare(2, 1));
+        Assertions.assertThat(BBAttacks.getPawnAttacks(55, false)).isEqualTo(BBUtils.getSquare(5, 6));
+        Assertions.assertThat(BBAttacks.getPawnPushes(12, true)).isEqualTo(BBUtils.getSquare(2, 4));
+        Assertions.assertThat(BBAttacks.getPawnPushes(52, false)).isEqualTo(BBUtils.getSquare(5, 4));
+        Assertions.assertThat(BBAttacks.getPawnPushes(60, true)).isZero();
+    }
+}
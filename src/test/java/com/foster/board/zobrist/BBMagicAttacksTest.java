@@ -0,0 +1,57 @@
+package com.foster.board.zobrist;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class BBMagicAttacksTest {
+
+    @Test
+    public void rookAttacksStopOnBlockers() {
+        // rook on d4, blockers on d6 and b4
+        long occupancy = BBUtils.getSquare(5, 3) | BBUtils.getSquare(3, 1);
+        long expected = BBUtils.getSquare(4, 3) | BBUtils.getSquare(5, 3)
+                | BBUtils.getSquare(2, 3) | BBUtils.getSquare(1, 3) | BBUtils.getSquare(0, 3)
+                | BBUtils.getSquare(3, 2) | BBUtils.getSquare(3, 1)
+                | BBUtils.getSquare(3, 4) | BBUtils.getSquare(3, 5) | BBUtils.getSquare(3, 6) | BBUtils.getSquare(3, 7);
+        Assertions.assertThat(BBMagicAttacks.getRookAttacks(27, occupancy)).isEqualTo(expected);
+    }
+
+    @Test
+    public void bishopAttacksFromCornerOnEmptyBoard() {
+        long expected = 0L;
+        for (int i = 1; i < 8; i++) {
+            expected |= BBUtils.getSquare(i, i);
+        }
+        Assertions.assertThat(BBMagicAttacks.getBishopAttacks(0, 0L)).isEqualTo(expected);
+    }
+
+    @Test
+    public void matchesRayWalkForRandomOccupancies() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            long occupancy = random.nextLong() & random.nextLong();
+            int loc = random.nextInt(64);
+            Assertions.assertThat(BBMagicAttacks.getQueenAttacks(loc, occupancy)).isEqualTo(walk(loc, occupancy));
+        }
+    }
+
+    private static long walk(int loc, long occupancy) {
+        long attacks = 0L;
+        int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+        for (int[] direction : directions) {
+            int r = BBUtils.getLocRow(loc) + direction[0];
+            int c = BBUtils.getLocCol(loc) + direction[1];
+            while (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                attacks |= BBUtils.getSquare(r, c);
+                if ((occupancy & BBUtils.getSquare(r, c)) != 0L) {
+                    break;
+                }
+                r += direction[0];
+                c += direction[1];
+            }
+        }
+        return attacks;
+    }
+}
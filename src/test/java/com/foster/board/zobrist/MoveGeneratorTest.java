@@ -0,0 +1,112 @@
+package com.foster.board.zobrist;
+
+import com.foster.board.Move;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+class MoveGeneratorTest {
+
+    @Test
+    public void startingMoves() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null);
+        int[] moves = MoveGenerator.getMoveStack();
+        Assertions.assertThat(MoveGenerator.generate(chessBoard, moves, 0)).isEqualTo(20);
+    }
+
+    @Test
+    public void writesAfterTheOffset() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null);
+        int[] moves = new int[ZobristChessBoard.MAX_MOVES];
+        int count = MoveGenerator.generate(chessBoard, moves, 100);
+        Assertions.assertThat(count).isEqualTo(20);
+        Assertions.assertThat(Arrays.stream(moves, 0, 100)).containsOnly(Move.NO_MOVE);
+        Assertions.assertThat(Arrays.stream(moves, 100, 120)).doesNotContain(Move.NO_MOVE);
+    }
+
+    @Test
+    public void promotionsToEveryPiece() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "1n6/P7/8/8/8/8/8/k6K w - - 0 1");
+        int[] moves = new int[ZobristChessBoard.MAX_MOVES];
+        int count = MoveGenerator.generate(chessBoard, moves, 0);
+
+        // four pushes, four captures of the knight and three king moves
+        Assertions.assertThat(count).isEqualTo(11);
+        Assertions.assertThat(Arrays.stream(moves, 0, count).filter(move -> Move.isPromotion(Move.getFlag(move))).count())
+                .isEqualTo(8);
+        Assertions.assertThat(Arrays.stream(moves, 0, count).filter(Move::isCapture))
+                .allMatch(move -> Move.getCapturedPieceType(move) == Move.KNIGHT);
+    }
+
+    @Test
+    public void castlingAndEnPassant() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "r3k2r/8/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1");
+        int[] moves = new int[ZobristChessBoard.MAX_MOVES];
+        int count = MoveGenerator.generate(chessBoard, moves, 0);
+
+        Assertions.assertThat(Arrays.stream(moves, 0, count).map(Move::getFlag))
+                .contains(Move.FLAG_CASTLE_KINGSIDE, Move.FLAG_CASTLE_QUEENSIDE, Move.FLAG_EN_PASSANT);
+    }
+
+    @Test
+    public void noCastlingThroughAttackedSquares() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "4k3/8/8/8/8/8/5r2/R3K2R w KQ - 0 1");
+        int[] moves = new int[ZobristChessBoard.MAX_MOVES];
+        int count = MoveGenerator.generate(chessBoard, moves, 0);
+
+        // the rook covers f1, which the king passes on the king side
+        Assertions.assertThat(Arrays.stream(moves, 0, count).map(Move::getFlag))
+                .doesNotContain(Move.FLAG_CASTLE_KINGSIDE)
+                .contains(Move.FLAG_CASTLE_QUEENSIDE);
+    }
+
+    @Test
+    public void legalMovesOfTheStartingPosition() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null);
+        int[] moves = new int[ZobristChessBoard.MAX_MOVES];
+        Assertions.assertThat(MoveGenerator.generateLegal(chessBoard, moves, 0)).isEqualTo(20);
+    }
+
+    @Test
+    public void checkIsBlockedCapturedOrStepsAside() {
+        // the e8 rook checks, the bishop can block on e3, the knight can block on e4 or take the rook
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "4r2k/8/3N4/8/8/8/8/2B1K3 w - - 0 1");
+        int[] moves = new int[ZobristChessBoard.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(chessBoard, moves, 0);
+
+        Assertions.assertThat(Arrays.stream(moves, 0, count).mapToObj(BBUtils::moveToString))
+                .containsExactlyInAnyOrder("Nd6xe8", "Nd6-e4", "Bc1-e3", "Ke1-d1", "Ke1-d2", "Ke1-f1", "Ke1-f2");
+    }
+
+    @Test
+    public void onlyTheKingMovesInDoubleCheck() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "4r2k/8/8/8/8/5n2/3Q4/4K3 w - - 0 1");
+        int[] moves = new int[ZobristChessBoard.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(chessBoard, moves, 0);
+
+        Assertions.assertThat(Arrays.stream(moves, 0, count)).allMatch(move -> Move.getPieceType(move) == Move.KING);
+    }
+
+    @Test
+    public void pinnedPieceStaysOnThePinLine() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "7k/8/8/8/b7/8/2Q5/3K4 w - - 0 1");
+        int[] moves = new int[ZobristChessBoard.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(chessBoard, moves, 0);
+
+        Assertions.assertThat(Arrays.stream(moves, 0, count).filter(move -> Move.getPieceType(move) == Move.QUEEN)
+                        .mapToObj(BBUtils::moveToString))
+                .containsExactlyInAnyOrder("Qc2-b3", "Qc2xa4");
+    }
+
+    @Test
+    public void enPassantUncoveringTheKingIsIllegal() {
+        // taking on c6 empties b5 and c5, leaving the king on a5 to the h5 rook
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "7k/8/8/KPp4r/8/8/8/8 w - c6 0 1");
+        int[] moves = new int[ZobristChessBoard.MAX_MOVES];
+        int count = MoveGenerator.generateLegal(chessBoard, moves, 0);
+
+        Assertions.assertThat(Arrays.stream(moves, 0, count).map(Move::getFlag)).doesNotContain(Move.FLAG_EN_PASSANT);
+        Assertions.assertThat(MoveGenerator.generate(chessBoard, moves, 0)).isGreaterThan(count);
+    }
+}
@@ -0,0 +1,215 @@
+package com.foster.board.zobrist;
+
+import com.foster.Player;
+import com.foster.board.DefaultChessBoard;
+import com.foster.board.Move;
+import com.foster.board.Position;
+import com.foster.board.piece.Queen;
+import com.foster.scoring.DefaultBoardScoringService;
+import com.foster.search.AlphaBetaBoardService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+class ZobristChessBoardTest {
+
+    @Test
+    public void startingMoves() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null);
+        List<Move> moves = chessBoard.getWhitePieces().stream().flatMap(piece -> piece.possibleStreamMoves(chessBoard)).collect(Collectors.toList());
+        Assertions.assertThat(moves.size()).isEqualTo(20);
+    }
+
+    @Test
+    public void loadFromFEN() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null);
+        Assertions.assertThat(chessBoard.getBlackPieces().size()).isEqualTo(16);
+        Assertions.assertThat(chessBoard.getWhitePieces().size()).isEqualTo(16);
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo(BBUtils.START_FEN);
+
+        chessBoard = new ZobristChessBoard(null, null, "rnbqkbnr/pppppppp/8/8/4PP/8/PPPP11PP/RNBQKBNR b KQkq e3 0 1");
+        Assertions.assertThat(chessBoard.getWhitePieces().size()).isEqualTo(16);
+    }
+
+    @Test
+    public void applyMovePawnNoPromotionTranslateFen() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null);
+        var piece = chessBoard.getWhitePieces().stream()
+                .filter(p -> {
+                    var position = p.getPosition();
+                    return position.column() == 0 && position.row() == 6;
+                })
+                .findAny().get();
+        var move = new Move(piece, new Position(4, 0));
+        var actual = chessBoard.applyMove(move, true).get();
+        String expected = "rnbqkbnr/pppppppp/8/8/P7/8/1PPPPPPP/RNBQKBNR b KQkq a3 0 1";
+        Assertions.assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void applyWhitePawnMoveTakeBlackPromotion() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "1p6/P7/8/8/8/8/8/8 w - - 0 1");
+        var piece = chessBoard.getWhitePieces().get(0);
+        var move = new Move(piece, new Position(0, 1));
+        chessBoard.applyMove(move, true);
+        Assertions.assertThat(chessBoard.getWhitePieces().stream().filter(p -> p.getClass().equals(Queen.class)).collect(Collectors.toList()).size()).isEqualTo(1);
+        Assertions.assertThat(chessBoard.getBlackPieces().size()).isEqualTo(0);
+    }
+
+    @Test
+    public void pawnMoveCaptureOpponentPromotedRollbackSuccessful() {
+        String expected = "1p6/P7/8/8/8/8/8/8 w - - 0 1";
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, expected);
+        var piece = chessBoard.getWhitePieces().get(0);
+        var move = new Move(piece, new Position(0, 1));
+        chessBoard.applyMove(move, true);
+        var actual = chessBoard.rollbackToPreviousMove(true).get();
+        Assertions.assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void rollbackSeveralMoves() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null);
+        long startingKey = chessBoard.key;
+        Assertions.assertThat(chessBoard.makeMove(Move.createMove(12, 28, Move.PAWN, Move.FLAG_NONE))).isTrue();
+        Assertions.assertThat(chessBoard.makeMove(Move.createMove(52, 36, Move.PAWN, Move.FLAG_NONE))).isTrue();
+        Assertions.assertThat(chessBoard.makeMove(Move.createMove(6, 21, Move.KNIGHT, Move.FLAG_NONE))).isTrue();
+
+        chessBoard.rollbackToPreviousMove(false);
+        chessBoard.rollbackToPreviousMove(false);
+        var actual = chessBoard.rollbackToPreviousMove(true).get();
+        Assertions.assertThat(actual).isEqualTo(BBUtils.START_FEN);
+        Assertions.assertThat(chessBoard.key).isEqualTo(startingKey);
+    }
+
+    @Test
+    public void makeMoveRejectsMovesIntoCheck() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "4r3/8/8/8/8/8/4B3/4K3 w - - 0 1");
+        boolean actual = chessBoard.makeMove(Move.createMove(12, 21, Move.BISHOP, Move.FLAG_NONE));
+        Assertions.assertThat(actual).isFalse();
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo("4r3/8/8/8/8/8/4B3/4K3 w - - 0 1");
+    }
+
+    @Test
+    public void startFromDefaultNoMoveRollbackNotPossible() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null);
+        var actual = chessBoard.rollbackToPreviousMove(true).get();
+        Assertions.assertThat(actual).isEqualTo(BBUtils.START_FEN);
+    }
+
+    @Test
+    public void incrementalKeyMatchesKeyReadFromFEN() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "r3k2r/8/8/8/3p4/8/4P3/R3K2R w KQkq - 0 1");
+        chessBoard.makeMove(Move.createMove(12, 28, Move.PAWN, Move.FLAG_NONE));
+        chessBoard.makeMove(Move.createCapture(27, 20, Move.PAWN, Move.PAWN, Move.FLAG_EN_PASSANT));
+        chessBoard.makeMove(Move.createMove(4, 6, Move.KING, Move.FLAG_CASTLE_KINGSIDE));
+        chessBoard.makeMove(Move.createCapture(56, 0, Move.ROOK, Move.ROOK, Move.FLAG_NONE));
+
+        var expected = new ZobristChessBoard(null, null, chessBoard.translateToFEN());
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo("4k2r/8/8/8/8/4p3/8/r4RK1 w k - 0 3");
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(expected.getKey());
+    }
+
+    @Test
+    public void copyIsIndependentOfTheOriginal() {
+        String fen = "r3k2r/8/8/8/3pP3/8/8/R3K2R b Kq e3 0 1";
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, fen);
+        var copy = chessBoard.copy();
+        Assertions.assertThat(copy.getKey()).isEqualTo(chessBoard.getKey());
+
+        Assertions.assertThat(copy.makeMove(Move.createCapture(27, 20, Move.PAWN, Move.PAWN, Move.FLAG_EN_PASSANT))).isTrue();
+        Assertions.assertThat(copy.getKey()).isNotEqualTo(chessBoard.getKey());
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo(fen);
+    }
+
+    @Test
+    public void nullMovePassesTheTurnAndRollsBack() {
+        String fen = "r3k2r/8/8/8/3pP3/8/8/R3K2R b Kq e3 0 1";
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, fen);
+        long key = chessBoard.getKey();
+        Assertions.assertThat(chessBoard.getPieceMaterial(Player.black)).isEqualTo(1000);
+
+        chessBoard.makeNullMove();
+        Assertions.assertThat(chessBoard.white_to_move).isTrue();
+        Assertions.assertThat(chessBoard.getEnPassantLocation()).isEqualTo(-1);
+        Assertions.assertThat(chessBoard.getKey()).isNotEqualTo(key);
+
+        chessBoard.rollbackToPreviousMove(false);
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo(fen);
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(key);
+    }
+
+    @Test
+    public void repetitionsAndTheFiftyMoveRuleDraw() {
+        ZobristChessBoard chessBoard = new ZobristChessBoard(null, null, "4k3/8/8/8/8/8/4P3/4K1N1 w - - 0 1");
+        playKnightShuffle(chessBoard);
+        Assertions.assertThat(chessBoard.isRepetition()).isTrue();
+        Assertions.assertThat(chessBoard.isDraw()).isFalse();
+
+        playKnightShuffle(chessBoard);
+        Assertions.assertThat(chessBoard.isDraw()).isTrue();
+        Assertions.assertThat(chessBoard.isEndOfGame()).isTrue();
+
+        ZobristChessBoard fiftyMoves = new ZobristChessBoard(null, null, "4k3/8/8/8/8/8/4P3/4K1N1 w - - 99 80");
+        Assertions.assertThat(fiftyMoves.isDraw()).isFalse();
+        fiftyMoves.makeMove(Move.createMove(6, 21, Move.KNIGHT, Move.FLAG_NONE));
+        Assertions.assertThat(fiftyMoves.getHalfMoveClock()).isEqualTo(100);
+        Assertions.assertThat(fiftyMoves.isDraw()).isTrue();
+    }
+
+    private static void playKnightShuffle(ZobristChessBoard chessBoard) {
+        chessBoard.makeMove(Move.createMove(6, 21, Move.KNIGHT, Move.FLAG_NONE));
+        chessBoard.makeMove(Move.createMove(60, 59, Move.KING, Move.FLAG_NONE));
+        chessBoard.makeMove(Move.createMove(21, 6, Move.KNIGHT, Move.FLAG_NONE));
+        chessBoard.makeMove(Move.createMove(59, 60, Move.KING, Move.FLAG_NONE));
+    }
+
+    @Test
+    public void staticExchangeEvaluation() {
+        ZobristChessBoard undefended = new ZobristChessBoard(null, null, "1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1");
+        Assertions.assertThat(undefended.see(Move.createCapture(4, 36, Move.ROOK, Move.PAWN, Move.FLAG_NONE))).isEqualTo(100);
+
+        // the queens behind the rook and the bishop join in once those have taken
+        ZobristChessBoard xrays = new ZobristChessBoard(null, null, "1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1");
+        Assertions.assertThat(xrays.see(Move.createCapture(19, 36, Move.KNIGHT, Move.PAWN, Move.FLAG_NONE))).isEqualTo(-225);
+
+        ZobristChessBoard defendedByAPawn = new ZobristChessBoard(null, null, "4k3/8/4p3/3n4/4P3/8/8/4K3 w - - 0 1");
+        Assertions.assertThat(defendedByAPawn.see(Move.createCapture(28, 35, Move.PAWN, Move.KNIGHT, Move.FLAG_NONE))).isEqualTo(225);
+        Assertions.assertThat(new DefaultChessBoard(null, null, "4k3/8/4p3/3n4/4P3/8/8/4K3 w - - 0 1")
+                .see(Move.createCapture(28, 35, Move.PAWN, Move.KNIGHT, Move.FLAG_NONE))).isEqualTo(225);
+    }
+
+    @Test
+    public void mateAndStalemate() {
+        ZobristChessBoard mated = new ZobristChessBoard(null, null, "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        Assertions.assertThat(mated.isMate()).isTrue();
+        Assertions.assertThat(mated.isStalemate()).isFalse();
+
+        ZobristChessBoard stalemated = new ZobristChessBoard(null, null, "7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        Assertions.assertThat(stalemated.isMate()).isFalse();
+        Assertions.assertThat(stalemated.isStalemate()).isTrue();
+    }
+
+    @Test
+    public void playsTheGameOut() {
+        var white = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 3);
+        var black = new AlphaBetaBoardService(Player.black, new DefaultBoardScoringService(), 3);
+        ZobristChessBoard chessBoard = new ZobristChessBoard(black, white, "4k3/8/8/8/8/8/8/3QK3 w - - 0 1");
+        chessBoard.play();
+        Assertions.assertThat(chessBoard.isEndOfGame()).isTrue();
+        Assertions.assertThat(chessBoard.moveNumber).isPositive();
+    }
+
+    @Test
+    public void playsTheUnderPromotionThatMates() {
+        // a queen on f8 doesn't even give check, only the knight mates
+        var white = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 2);
+        var black = new AlphaBetaBoardService(Player.black, new DefaultBoardScoringService(), 2);
+        ZobristChessBoard chessBoard = new ZobristChessBoard(black, white, "7b/5Ppk/6pp/8/8/8/B7/1K6 w - - 0 1");
+        chessBoard.play();
+        Assertions.assertThat(chessBoard.isMate()).isTrue();
+        Assertions.assertThat(chessBoard.translateToFEN()).startsWith("5N1b/6pk/6pp/");
+    }
+}
@@ -3,6 +3,8 @@ package com.foster.scoring;
 import com.foster.Player;
 import com.foster.board.DefaultChessBoard;
 import com.foster.board.Move;
+import com.foster.board.zobrist.ZobristChessBoard;
+import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.util.Optional;
@@ -18,6 +20,16 @@ class DefaultBoardServiceTest {
         Optional<Move> move = whiteBoardService.findBestMove(chessBoard);
     }
 
+    @Test
+    public void oneLevelOnBitboards() {
+        DefaultBoardScoringService boardScoringService = new DefaultBoardScoringService();
+        DefaultBoardService whiteBoardService = new DefaultBoardService(Player.white, boardScoringService, 2);
+        DefaultBoardService blackBoardService = new DefaultBoardService(Player.black, boardScoringService, 1);
+        ZobristChessBoard chessBoard = new ZobristChessBoard(blackBoardService, whiteBoardService);
+        Optional<Move> move = whiteBoardService.findBestMove(chessBoard);
+        Assertions.assertThat(move).isPresent();
+    }
+
     @Test
     public void deepInADefaultBoard() {
         DefaultBoardScoringService boardScoringService = new DefaultBoardScoringService();
@@ -0,0 +1,203 @@
+package com.foster.search;
+
+import com.foster.Player;
+import com.foster.SearchLimits;
+import com.foster.board.DefaultChessBoard;
+import com.foster.board.Move;
+import com.foster.board.Position;
+import com.foster.board.zobrist.BBUtils;
+import com.foster.board.zobrist.ZobristChessBoard;
+import com.foster.scoring.DefaultBoardScoringService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class AlphaBetaBoardServiceTest {
+    private static final String BACK_RANK_MATE = "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1";
+    // a queen on f8 doesn't even give check, a knight mates
+    private static final String KNIGHT_PROMOTION_MATE = "7b/5Ppk/6pp/8/8/8/B7/1K6 w - - 0 1";
+
+    @Test
+    public void findsMateInOne() {
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 3);
+        Optional<Move> move = service.findBestMove(new ZobristChessBoard(null, null, BACK_RANK_MATE));
+        Assertions.assertThat(move).isPresent();
+        Assertions.assertThat(move.get().destination()).isEqualTo(new Position(0, 0));
+    }
+
+    @Test
+    public void findsMateInOneOnThePieceBoard() {
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 3);
+        var chessBoard = new DefaultChessBoard(null, null, BACK_RANK_MATE);
+        Optional<Move> move = service.findBestMove(chessBoard);
+        Assertions.assertThat(move).isPresent();
+        Assertions.assertThat(move.get().destination()).isEqualTo(new Position(0, 0));
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(new DefaultChessBoard(null, null, BACK_RANK_MATE).getKey());
+    }
+
+    @Test
+    public void findsTheMateByUnderPromotion() {
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 2);
+        var chessBoard = new ZobristChessBoard(null, null, KNIGHT_PROMOTION_MATE);
+        Optional<Move> move = service.findBestMove(chessBoard);
+        Assertions.assertThat(move).isPresent();
+        Assertions.assertThat(move.get().promotionType()).isEqualTo(Move.KNIGHT);
+        chessBoard.applyMove(move.get(), false);
+        Assertions.assertThat(chessBoard.translateToFEN()).startsWith("5N1b/6pk/6pp/");
+    }
+
+    @Test
+    public void findsTheMateByUnderPromotionOnThePieceBoard() {
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 2);
+        var chessBoard = new DefaultChessBoard(null, null, KNIGHT_PROMOTION_MATE);
+        Optional<Move> move = service.findBestMove(chessBoard);
+        Assertions.assertThat(move).isPresent();
+        Assertions.assertThat(move.get().promotionType()).isEqualTo(Move.KNIGHT);
+        chessBoard.applyMove(move.get(), false);
+        Assertions.assertThat(chessBoard.translateToFEN()).startsWith("5N1b/6pk/6pp/");
+    }
+
+    @Test
+    public void takesTheHangingQueen() {
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 2);
+        Optional<Move> move = service.findBestMove(new ZobristChessBoard(null, null, "4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1"));
+        Assertions.assertThat(move).isPresent();
+        Assertions.assertThat(move.get().destination()).isEqualTo(new Position(3, 3));
+    }
+
+    @Test
+    public void leavesTheDefendedPawnAlone() {
+        // one ply only sees the pawn, the quiescence search sees the recapture
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 1);
+        Optional<Move> move = service.findBestMove(new ZobristChessBoard(null, null, "4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1"));
+        Assertions.assertThat(move).isPresent();
+        Assertions.assertThat(move.get().destination()).isNotEqualTo(new Position(3, 3));
+    }
+
+    @Test
+    public void noMoveWhenMated() {
+        var service = new AlphaBetaBoardService(Player.black, new DefaultBoardScoringService(), 2);
+        Optional<Move> move = service.findBestMove(new ZobristChessBoard(null, null, "R5k1/5ppp/8/8/8/8/8/6K1 b - - 1 1"));
+        Assertions.assertThat(move).isEmpty();
+    }
+
+    @Test
+    public void deepensToTheDepthLimit() {
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 3);
+        var result = service.search(new ZobristChessBoard(null, null), SearchLimits.depth(3));
+        Assertions.assertThat(result.depth()).isEqualTo(3);
+        Assertions.assertThat(result.move()).isNotEqualTo(Move.NO_MOVE);
+    }
+
+    @Test
+    public void findsAMateOutsideTheAspirationWindow() {
+        // the rook roller mates in four, which only shows once the last iterations' scores are far below it. Forward
+        // pruning would take the quiet rook moves for futile this close to the leaves
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.depth(7),
+                new TranspositionTable(16), PruningMargins.OFF);
+        var chessBoard = new ZobristChessBoard(null, null, "8/8/6k1/8/8/8/R7/1R4K1 w - - 0 1");
+        var result = service.search(chessBoard, SearchLimits.depth(7));
+        Assertions.assertThat(result.score()).isEqualTo(AlphaBetaBoardService.MATE - 7);
+    }
+
+    @Test
+    public void forwardPruningSearchesFewerNodes() {
+        String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        var pruned = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.depth(6),
+                new TranspositionTable(16), PruningMargins.DEFAULT);
+        var full = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.depth(6),
+                new TranspositionTable(16), PruningMargins.OFF);
+
+        var prunedResult = pruned.search(new ZobristChessBoard(null, null, kiwipete), SearchLimits.depth(6));
+        var fullResult = full.search(new ZobristChessBoard(null, null, kiwipete), SearchLimits.depth(6));
+        Assertions.assertThat(prunedResult.depth()).isEqualTo(6);
+        Assertions.assertThat(prunedResult.nodes()).isLessThan(fullResult.nodes());
+    }
+
+    @Test
+    public void reportsThePrincipalVariationOfEveryIteration() {
+        String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 5);
+        List<SearchResult> iterations = new ArrayList<>();
+        service.setIterationListener(iterations::add);
+        var chessBoard = new ZobristChessBoard(null, null, kiwipete);
+        var result = service.search(chessBoard, SearchLimits.depth(5));
+
+        Assertions.assertThat(iterations).extracting(SearchResult::depth).containsExactly(1, 2, 3, 4, 5);
+        for (var iteration : iterations) {
+            Assertions.assertThat(iteration.pv()).isNotEmpty().startsWith(iteration.move());
+        }
+        Assertions.assertThat(result.pv()).hasSizeGreaterThan(1).hasSizeLessThanOrEqualTo(5);
+        for (int move : result.pv()) {
+            Assertions.assertThat(chessBoard.makeMove(move)).isTrue();
+        }
+    }
+
+    @Test
+    public void searchesSeveralLinesBestFirst() {
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), 4);
+        var chessBoard = new ZobristChessBoard(null, null, "4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        var lines = service.searchLines(chessBoard, SearchLimits.depth(4), 3);
+
+        Assertions.assertThat(lines).hasSize(3);
+        Assertions.assertThat(Move.getTo(lines.get(0).move())).isEqualTo(35);
+        Assertions.assertThat(lines).extracting(SearchLine::move).doesNotHaveDuplicates();
+        Assertions.assertThat(lines.get(0).score()).isGreaterThan(lines.get(1).score());
+        Assertions.assertThat(lines.get(1).score()).isGreaterThanOrEqualTo(lines.get(2).score());
+        for (var line : lines) {
+            Assertions.assertThat(line.depth()).isEqualTo(4);
+            Assertions.assertThat(line.moves()).isNotEmpty().hasSizeLessThanOrEqualTo(4);
+        }
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+    }
+
+    @Test
+    public void noMoreLinesThanLegalMoves() {
+        var service = new AlphaBetaBoardService(Player.black, new DefaultBoardScoringService(), 2);
+        // the rook holds the g-file, the king can only go to h7
+        var lines = service.searchLines(new ZobristChessBoard(null, null, "7k/8/8/8/8/8/8/K5R1 b - - 0 1"),
+                SearchLimits.depth(2), 5);
+        Assertions.assertThat(lines).hasSize(1);
+        Assertions.assertThat(Move.getTo(lines.get(0).move())).isEqualTo(55);
+    }
+
+    @Test
+    public void stopsAtTheMoveTime() {
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.INFINITE);
+        var chessBoard = new ZobristChessBoard(null, null);
+        var result = service.search(chessBoard, SearchLimits.moveTime(200));
+
+        Assertions.assertThat(result.move()).isNotEqualTo(Move.NO_MOVE);
+        Assertions.assertThat(result.millis()).isLessThan(2000);
+        Assertions.assertThat(chessBoard.translateToFEN()).isEqualTo(BBUtils.START_FEN);
+    }
+
+    @Test
+    public void stopsAtTheNodeLimitOnceAnIterationIsDone() {
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.INFINITE);
+        var result = service.search(new ZobristChessBoard(null, null), SearchLimits.nodes(10_000));
+
+        Assertions.assertThat(result.depth()).isGreaterThanOrEqualTo(1);
+        Assertions.assertThat(result.nodes()).isLessThan(10_000 + 4096);
+    }
+
+    @Test
+    public void stopsWhenAskedFromAnotherThread() throws InterruptedException {
+        var service = new AlphaBetaBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.INFINITE);
+        var stopper = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            service.stop();
+        });
+        stopper.start();
+        var result = service.search(new ZobristChessBoard(null, null), SearchLimits.INFINITE);
+        stopper.join();
+        Assertions.assertThat(result.move()).isNotEqualTo(Move.NO_MOVE);
+    }
+}
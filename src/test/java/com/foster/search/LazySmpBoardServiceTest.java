@@ -0,0 +1,61 @@
+package com.foster.search;
+
+import com.foster.Player;
+import com.foster.SearchLimits;
+import com.foster.board.DefaultChessBoard;
+import com.foster.board.Move;
+import com.foster.board.Position;
+import com.foster.board.zobrist.BBUtils;
+import com.foster.board.zobrist.ZobristChessBoard;
+import com.foster.scoring.DefaultBoardScoringService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+class LazySmpBoardServiceTest {
+    private static final String BACK_RANK_MATE = "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1";
+
+    @Test
+    public void findsMateInOneOnEveryThread() {
+        var service = new LazySmpBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.depth(3), 4);
+        Optional<Move> move = service.findBestMove(new ZobristChessBoard(null, null, BACK_RANK_MATE));
+        Assertions.assertThat(move).isPresent();
+        Assertions.assertThat(move.get().destination()).isEqualTo(new Position(0, 0));
+    }
+
+    @Test
+    public void searchesThePieceBoardOnCopies() {
+        var service = new LazySmpBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.depth(3), 3);
+        var chessBoard = new DefaultChessBoard(null, null, BACK_RANK_MATE);
+        Optional<Move> move = service.findBestMove(chessBoard);
+        Assertions.assertThat(move).isPresent();
+        Assertions.assertThat(move.get().destination()).isEqualTo(new Position(0, 0));
+        Assertions.assertThat(chessBoard.getKey()).isEqualTo(new DefaultChessBoard(null, null, BACK_RANK_MATE).getKey());
+    }
+
+    @Test
+    public void addsUpTheNodesOfAllThreads() {
+        var table = new TranspositionTable(16);
+        var single = new LazySmpBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.depth(3), 1, table);
+        long singleNodes = single.search(new ZobristChessBoard(null, null), SearchLimits.depth(3)).nodes();
+
+        table.clear();
+        var parallel = new LazySmpBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.depth(3), 4, table);
+        var result = parallel.search(new ZobristChessBoard(null, null), SearchLimits.depth(3));
+        Assertions.assertThat(result.depth()).isGreaterThanOrEqualTo(3);
+        Assertions.assertThat(result.move()).isNotEqualTo(Move.NO_MOVE);
+        Assertions.assertThat(result.nodes()).isGreaterThan(singleNodes);
+    }
+
+    @Test
+    public void stopsAllThreadsAtTheMoveTime() {
+        var service = new LazySmpBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.INFINITE, 4);
+        long start = System.nanoTime();
+        var result = service.search(new ZobristChessBoard(null, null, BBUtils.START_FEN), SearchLimits.moveTime(200));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        Assertions.assertThat(result.move()).isNotEqualTo(Move.NO_MOVE);
+        Assertions.assertThat(millis).isLessThan(2000);
+    }
+}
@@ -0,0 +1,56 @@
+package com.foster.search;
+
+import com.foster.Player;
+import com.foster.board.Move;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class MoveOrderingTest {
+    private static final int QUIET = Move.createMove(1, 18, Move.KNIGHT, Move.FLAG_NONE);
+    private static final int KILLER = Move.createMove(6, 21, Move.KNIGHT, Move.FLAG_NONE);
+    private static final int HISTORY = Move.createMove(12, 28, Move.PAWN, Move.FLAG_NONE);
+    private static final int PAWN_TAKES_PAWN = Move.createCapture(27, 36, Move.PAWN, Move.PAWN, Move.FLAG_NONE);
+    private static final int QUEEN_TAKES_ROOK = Move.createCapture(3, 59, Move.QUEEN, Move.ROOK, Move.FLAG_NONE);
+    private static final int PAWN_TAKES_ROOK = Move.createCapture(50, 59, Move.PAWN, Move.ROOK, Move.FLAG_NONE);
+    private static final int HASH_MOVE = Move.createMove(11, 19, Move.PAWN, Move.FLAG_NONE);
+
+    @Test
+    public void hashMoveThenCapturesThenKillersThenHistory() {
+        var ordering = new MoveOrdering();
+        ordering.newSearch();
+        ordering.recordCutoff(KILLER, 3, 2, Player.white);
+        ordering.recordCutoff(HISTORY, 5, 4, Player.white);
+
+        int[] moves = {0, QUIET, HISTORY, PAWN_TAKES_PAWN, KILLER, QUEEN_TAKES_ROOK, HASH_MOVE, PAWN_TAKES_ROOK, 0};
+        ordering.order(moves, 1, 8, HASH_MOVE, 3, Player.white);
+
+        Assertions.assertThat(moves).containsExactly(0, HASH_MOVE, PAWN_TAKES_ROOK, QUEEN_TAKES_ROOK, PAWN_TAKES_PAWN,
+                KILLER, HISTORY, QUIET, 0);
+    }
+
+    @Test
+    public void killersAreKeptPerPlyAndCapturesAreNotKillers() {
+        var ordering = new MoveOrdering();
+        ordering.newSearch();
+        ordering.recordCutoff(QUIET, 2, 1, Player.black);
+        ordering.recordCutoff(KILLER, 2, 1, Player.black);
+        ordering.recordCutoff(KILLER, 2, 1, Player.black);
+        ordering.recordCutoff(PAWN_TAKES_PAWN, 2, 1, Player.black);
+
+        Assertions.assertThat(ordering.getKiller(2, 0)).isEqualTo(KILLER);
+        Assertions.assertThat(ordering.getKiller(2, 1)).isEqualTo(QUIET);
+        Assertions.assertThat(ordering.getKiller(3, 0)).isEqualTo(Move.NO_MOVE);
+        Assertions.assertThat(ordering.getHistory(KILLER, Player.black)).isEqualTo(2);
+        Assertions.assertThat(ordering.getHistory(KILLER, Player.white)).isZero();
+    }
+
+    @Test
+    public void newSearchForgetsKillersAndHalvesHistory() {
+        var ordering = new MoveOrdering();
+        ordering.recordCutoff(HISTORY, 1, 4, Player.white);
+        ordering.newSearch();
+
+        Assertions.assertThat(ordering.getKiller(1, 0)).isEqualTo(Move.NO_MOVE);
+        Assertions.assertThat(ordering.getHistory(HISTORY, Player.white)).isEqualTo(8);
+    }
+}
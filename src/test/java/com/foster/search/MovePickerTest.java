@@ -0,0 +1,94 @@
+package com.foster.search;
+
+import com.foster.ChessBoard;
+import com.foster.Player;
+import com.foster.board.DefaultChessBoard;
+import com.foster.board.Move;
+import com.foster.board.zobrist.ZobristChessBoard;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class MovePickerTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final int A2_A3 = Move.createMove(8, 16, Move.PAWN, Move.FLAG_NONE);
+    private static final int G2_G3 = Move.createMove(14, 22, Move.PAWN, Move.FLAG_NONE);
+    private static final int A1_A5 = Move.createMove(0, 32, Move.ROOK, Move.FLAG_NONE);
+
+    @Test
+    public void hashMoveComesBeforeAnythingIsGenerated() {
+        var chessBoard = new ZobristChessBoard(null, null, KIWIPETE);
+        var picker = newPicker(new MoveOrdering());
+        int[] moveStack = new int[1024];
+        picker.reset(chessBoard, Player.white, A2_A3, 0, moveStack, 10);
+
+        Assertions.assertThat(picker.next()).isEqualTo(A2_A3);
+        Assertions.assertThat(picker.getEnd()).isEqualTo(10);
+    }
+
+    @Test
+    public void capturesThenKillersThenQuietMoves() {
+        var chessBoard = new ZobristChessBoard(null, null, KIWIPETE);
+        var ordering = new MoveOrdering();
+        ordering.newSearch();
+        ordering.recordCutoff(G2_G3, 2, 1, Player.white);
+        var picker = newPicker(ordering);
+        picker.reset(chessBoard, Player.white, Move.NO_MOVE, 2, new int[1024], 0);
+
+        List<Integer> picked = pickAll(picker);
+        int killerIndex = picked.indexOf(G2_G3);
+        Assertions.assertThat(picked.subList(0, killerIndex)).allMatch(Move::isTactical);
+        Assertions.assertThat(picked.subList(killerIndex, picked.size())).noneMatch(Move::isTactical);
+        // the most valuable victim first, the bishop on a6
+        Assertions.assertThat(Move.getCapturedPieceType(picked.get(0))).isEqualTo(Move.BISHOP);
+    }
+
+    @Test
+    public void everyMoveIsPickedOnceOnBothBoards() {
+        assertPicksAllMoves(new ZobristChessBoard(null, null, KIWIPETE));
+        assertPicksAllMoves(new DefaultChessBoard(null, null, KIWIPETE));
+    }
+
+    @Test
+    public void illegalHashMoveAndKillersAreSkipped() {
+        var chessBoard = new ZobristChessBoard(null, null, KIWIPETE);
+        var ordering = new MoveOrdering();
+        ordering.newSearch();
+        ordering.recordCutoff(A1_A5, 0, 1, Player.white);
+        var picker = newPicker(ordering);
+        picker.reset(chessBoard, Player.white, A1_A5, 0, new int[1024], 0);
+
+        List<Integer> picked = pickAll(picker);
+        Assertions.assertThat(picked).doesNotContain(A1_A5).hasSize(48);
+    }
+
+    private static void assertPicksAllMoves(ChessBoard chessBoard) {
+        int[] moves = new int[256];
+        int count = chessBoard.generateMoves(Player.white, moves, 0);
+        Integer[] expected = Arrays.stream(moves, 0, count).boxed().toArray(Integer[]::new);
+
+        var ordering = new MoveOrdering();
+        ordering.newSearch();
+        ordering.recordCutoff(G2_G3, 0, 1, Player.white);
+        var picker = newPicker(ordering);
+        picker.reset(chessBoard, Player.white, A2_A3, 0, new int[1024], 0);
+
+        Assertions.assertThat(pickAll(picker)).containsExactlyInAnyOrder(expected);
+    }
+
+    private static MovePicker newPicker(MoveOrdering ordering) {
+        return new MovePicker(ordering, new int[1024]);
+    }
+
+    private static List<Integer> pickAll(MovePicker picker) {
+        List<Integer> picked = new ArrayList<>();
+        int move;
+        while ((move = picker.next()) != Move.NO_MOVE) {
+            picked.add(move);
+        }
+        return picked;
+    }
+}
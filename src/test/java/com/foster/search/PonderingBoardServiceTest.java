@@ -0,0 +1,51 @@
+package com.foster.search;
+
+import com.foster.Player;
+import com.foster.SearchLimits;
+import com.foster.board.Move;
+import com.foster.board.zobrist.ZobristChessBoard;
+import com.foster.scoring.DefaultBoardScoringService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PonderingBoardServiceTest {
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    public void takesOverThePonderSearchOnAHit() {
+        var service = new PonderingBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.depth(4));
+        var chessBoard = new ZobristChessBoard(null, null, KIWIPETE);
+        var move = service.findBestMove(chessBoard);
+        Assertions.assertThat(move).isPresent();
+        int ponderMove = service.getPonderMove();
+        Assertions.assertThat(ponderMove).isNotEqualTo(Move.NO_MOVE);
+
+        chessBoard.applyMove(move.get(), false);
+        Assertions.assertThat(chessBoard.makeMove(ponderMove)).isTrue();
+        var result = service.search(chessBoard, SearchLimits.depth(4));
+        Assertions.assertThat(result.depth()).isEqualTo(4);
+        Assertions.assertThat(chessBoard.isLegal(Player.white, result.move())).isTrue();
+        Assertions.assertThat(service.getPonderMove()).isEqualTo(Move.NO_MOVE);
+    }
+
+    @Test
+    public void searchesAgainOnAMiss() {
+        var service = new PonderingBoardService(Player.white, new DefaultBoardScoringService(), SearchLimits.INFINITE);
+        var chessBoard = new ZobristChessBoard(null, null, KIWIPETE);
+        var move = service.findBestMove(chessBoard, SearchLimits.depth(4));
+        Assertions.assertThat(move).isPresent();
+        int ponderMove = service.getPonderMove();
+        Assertions.assertThat(ponderMove).isNotEqualTo(Move.NO_MOVE);
+
+        chessBoard.applyMove(move.get(), false);
+        int[] replies = new int[ZobristChessBoard.MAX_MOVES];
+        int count = chessBoard.generateMoves(Player.black, replies, 0);
+        int reply = replies[0] == ponderMove ? replies[1] : replies[0];
+        Assertions.assertThat(chessBoard.makeMove(reply)).isTrue();
+        // the ponder search has no limit but being stopped, a miss has to stop it
+        var result = service.search(chessBoard, SearchLimits.depth(3));
+        Assertions.assertThat(count).isGreaterThan(1);
+        Assertions.assertThat(result.depth()).isEqualTo(3);
+        Assertions.assertThat(chessBoard.isLegal(Player.white, result.move())).isTrue();
+    }
+}
@@ -0,0 +1,42 @@
+package com.foster.search;
+
+import com.foster.Player;
+import com.foster.board.zobrist.MoveGenerator;
+import com.foster.board.zobrist.ZobristChessBoard;
+import com.foster.scoring.DefaultBoardScoringService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class QuiescenceSearchTest {
+
+    @Test
+    public void takesTheHangingQueen() {
+        var quiescenceSearch = new QuiescenceSearch(new DefaultBoardScoringService());
+        var chessBoard = new ZobristChessBoard(null, null, "4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1");
+        int standPat = quiescenceSearch.evaluate(chessBoard, Player.white);
+
+        Assertions.assertThat(quiescenceSearch.search(chessBoard, Player.white, MoveGenerator.getMoveStack(), 0))
+                .isGreaterThan(standPat);
+        Assertions.assertThat(quiescenceSearch.takeNodes()).isPositive();
+    }
+
+    @Test
+    public void standsPatRatherThanTakeADefendedPawn() {
+        var quiescenceSearch = new QuiescenceSearch(new DefaultBoardScoringService());
+        var chessBoard = new ZobristChessBoard(null, null, "4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1");
+
+        Assertions.assertThat(quiescenceSearch.search(chessBoard, Player.white, MoveGenerator.getMoveStack(), 0))
+                .isEqualTo(quiescenceSearch.evaluate(chessBoard, Player.white));
+        // the capture loses the queen, it isn't even played
+        Assertions.assertThat(quiescenceSearch.takeNodes()).isZero();
+    }
+
+    @Test
+    public void mateIsFoundInCheck() {
+        var quiescenceSearch = new QuiescenceSearch(new DefaultBoardScoringService());
+        var chessBoard = new ZobristChessBoard(null, null, "R5k1/5ppp/8/8/8/8/8/6K1 b - - 1 1");
+
+        Assertions.assertThat(quiescenceSearch.search(chessBoard, Player.black, MoveGenerator.getMoveStack(), 0))
+                .isEqualTo(-AlphaBetaBoardService.MATE);
+    }
+}
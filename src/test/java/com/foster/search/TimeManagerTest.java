@@ -0,0 +1,65 @@
+package com.foster.search;
+
+import com.foster.SearchLimits;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TimeManagerTest {
+    private static final int FIRST_MOVE = 1;
+    private static final int SECOND_MOVE = 2;
+
+    @Test
+    public void stopsOnceThePlanIsUsedUp() {
+        // two seconds planned for the move, eight at most
+        var timeManager = new TimeManager(SearchLimits.clock(60_000, 0), 1, 0);
+        Assertions.assertThat(timeManager.getDeadline()).isEqualTo(millis(8_000));
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(100))).isTrue();
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(300))).isTrue();
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(2_100))).isFalse();
+    }
+
+    @Test
+    public void takesLongerWhenTheBestMoveChanges() {
+        var timeManager = new TimeManager(SearchLimits.clock(60_000, 0), 1, 0);
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(100))).isTrue();
+        Assertions.assertThat(timeManager.startsNextIteration(SECOND_MOVE, 0, millis(2_100))).isTrue();
+    }
+
+    @Test
+    public void takesLongerWhenTheScoreDrops() {
+        var timeManager = new TimeManager(SearchLimits.clock(60_000, 0), 1, 0);
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(100))).isTrue();
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, -2, millis(2_100))).isTrue();
+    }
+
+    @Test
+    public void stopsEarlyWhenOneMoveDominates() {
+        var timeManager = new TimeManager(SearchLimits.clock(60_000, 0), 1, 0);
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(100))).isTrue();
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(200))).isTrue();
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(300))).isTrue();
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(1_100))).isFalse();
+    }
+
+    @Test
+    public void skipsAnIterationThatCannotFinish() {
+        // a third of a second planned, 1332 milliseconds at most
+        var timeManager = new TimeManager(SearchLimits.clock(10_000, 0), 1, 0);
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(100))).isTrue();
+        // twice the plan for the new move, but the next iteration would take about a second
+        Assertions.assertThat(timeManager.startsNextIteration(SECOND_MOVE, 0, millis(600))).isFalse();
+    }
+
+    @Test
+    public void spendsTheWholeMoveTime() {
+        var timeManager = new TimeManager(SearchLimits.moveTime(500), 1, millis(1_000));
+        Assertions.assertThat(timeManager.getDeadline()).isEqualTo(millis(1_500));
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(1_100))).isTrue();
+        Assertions.assertThat(timeManager.startsNextIteration(FIRST_MOVE, 0, millis(1_400))).isTrue();
+        Assertions.assertThat(new TimeManager(SearchLimits.INFINITE, 1, 0).getDeadline()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    private static long millis(long millis) {
+        return millis * 1_000_000;
+    }
+}
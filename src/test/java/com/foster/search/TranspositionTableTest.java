@@ -0,0 +1,73 @@
+package com.foster.search;
+
+import com.foster.board.Move;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class TranspositionTableTest {
+    private static final int MOVE = Move.createMove(12, 28, Move.PAWN, Move.FLAG_NONE);
+
+    @Test
+    public void storedEntryReadsBack() {
+        var table = new TranspositionTable(1);
+        table.store(0x1234L, MOVE, -250, 7, TranspositionTable.BOUND_LOWER, 3);
+
+        long entry = table.probe(0x1234L);
+        Assertions.assertThat(TranspositionTable.getMove(entry)).isEqualTo(MOVE);
+        Assertions.assertThat(TranspositionTable.getScore(entry, 3)).isEqualTo(-250);
+        Assertions.assertThat(TranspositionTable.getDepth(entry)).isEqualTo(7);
+        Assertions.assertThat(TranspositionTable.getBound(entry)).isEqualTo(TranspositionTable.BOUND_LOWER);
+    }
+
+    @Test
+    public void otherKeyMisses() {
+        var table = new TranspositionTable(1);
+        table.store(0x1234L, MOVE, 10, 1, TranspositionTable.BOUND_EXACT, 0);
+
+        Assertions.assertThat(table.probe(0x5678L)).isZero();
+        Assertions.assertThat(table.probe(0L)).isZero();
+    }
+
+    @Test
+    public void mateScoresAreRelativeToTheProbingPly() {
+        var table = new TranspositionTable(1);
+        // mate two plies below a node five plies from the root
+        table.store(1L, MOVE, AlphaBetaBoardService.MATE - 7, 4, TranspositionTable.BOUND_EXACT, 5);
+
+        Assertions.assertThat(TranspositionTable.getScore(table.probe(1L), 3)).isEqualTo(AlphaBetaBoardService.MATE - 5);
+    }
+
+    @Test
+    public void storingWithoutAMoveKeepsTheOldOne() {
+        var table = new TranspositionTable(1);
+        table.store(1L, MOVE, 10, 3, TranspositionTable.BOUND_LOWER, 0);
+        table.store(1L, Move.NO_MOVE, -5, 4, TranspositionTable.BOUND_UPPER, 0);
+
+        long entry = table.probe(1L);
+        Assertions.assertThat(TranspositionTable.getMove(entry)).isEqualTo(MOVE);
+        Assertions.assertThat(TranspositionTable.getScore(entry, 0)).isEqualTo(-5);
+    }
+
+    @Test
+    public void shallowerAndOlderEntriesAreReplacedFirst() {
+        // the smallest table is one bucket, every key lands in it
+        var table = new TranspositionTable(0);
+        table.store(1L, MOVE, 0, 9, TranspositionTable.BOUND_EXACT, 0);
+        table.store(2L, MOVE, 0, 2, TranspositionTable.BOUND_EXACT, 0);
+        table.store(3L, MOVE, 0, 5, TranspositionTable.BOUND_EXACT, 0);
+
+        Assertions.assertThat(table.probe(1L)).isNotZero();
+        Assertions.assertThat(table.probe(2L)).isZero();
+        Assertions.assertThat(table.probe(3L)).isNotZero();
+
+        table.newSearch();
+        table.store(4L, MOVE, 0, 1, TranspositionTable.BOUND_EXACT, 0);
+        table.store(5L, MOVE, 0, 1, TranspositionTable.BOUND_EXACT, 0);
+
+        // entries of the last search go first, however deep
+        Assertions.assertThat(table.probe(1L)).isZero();
+        Assertions.assertThat(table.probe(3L)).isZero();
+        Assertions.assertThat(table.probe(4L)).isNotZero();
+        Assertions.assertThat(table.probe(5L)).isNotZero();
+    }
+}